@@ -2,13 +2,14 @@ package sh.sidd.asmi;
 
 import lombok.extern.slf4j.Slf4j;
 import sh.sidd.asmi.compiler.Compiler;
+import sh.sidd.asmi.data.ExprArena;
 import sh.sidd.asmi.parser.Parser;
+import sh.sidd.asmi.scanner.MappedSource;
 import sh.sidd.asmi.scanner.Scanner;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -37,6 +38,8 @@ public class AsmiCli {
   /**
    * Runs a *.asmi file.
    *
+   * <p>The file is memory-mapped instead of being read onto the heap, see {@link MappedSource}.
+   *
    * @param path The path to the file to run.
    */
   private void runFile(String path) {
@@ -44,7 +47,7 @@ public class AsmiCli {
     System.out.println();
 
     try {
-      run(Files.readString(Paths.get(path)));
+      run(MappedSource.open(Paths.get(path)));
     } catch (IOException ex) {
       log.error("Failed to run file: " + path, ex);
       System.exit(1);
@@ -78,13 +81,13 @@ public class AsmiCli {
    *
    * @param source The source code to run.
    */
-  private void run(String source) {
+  private void run(CharSequence source) {
     final var errorHandler = new ErrorHandler();
     final var scanner = new Scanner(source, errorHandler);
-    final var tokens = scanner.scanTokens();
-    final var parser = new Parser(errorHandler, tokens);
+    final var arena = new ExprArena();
+    final var parser = new Parser(errorHandler, scanner, arena);
     final var ast = parser.parse();
-    final var compiler = new Compiler(errorHandler, ast, scanner);
+    final var compiler = new Compiler(errorHandler, ast, scanner, arena);
 
     compiler.compile();
 
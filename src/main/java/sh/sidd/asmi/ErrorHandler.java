@@ -10,9 +10,25 @@ import sh.sidd.asmi.data.Token;
 @Slf4j
 public class ErrorHandler {
   private final List<String> errors;
+  private final boolean logErrors;
 
   public ErrorHandler() {
-    errors = new ArrayList<>();
+    this(true);
+  }
+
+  protected ErrorHandler(boolean logErrors) {
+    this.errors = new ArrayList<>();
+    this.logErrors = logErrors;
+  }
+
+  /**
+   * Creates an error handler which only collects errors without logging them.
+   *
+   * <p>Used for work done in parallel, whose errors are later merged via {@link #merge} in a
+   * deterministic order.
+   */
+  public static ErrorHandler collecting() {
+    return new ErrorHandler(false);
   }
 
   /** Checks whether any errors occurred. */
@@ -32,7 +48,7 @@ public class ErrorHandler {
    * @param message The error message.
    */
   public void report(int line, String message) {
-    logError(String.format("[line %d] Error: %s", line + 1, message));
+    logError(format(line, null, message));
   }
 
   /**
@@ -42,8 +58,34 @@ public class ErrorHandler {
    * @param message The error message.
    */
   public void report(Token token, String message) {
-    logError(
-        String.format("[line %d] Error at '%s': %s", token.line() + 1, token.lexeme(), message));
+    logError(format(token.line(), token.lexeme(), message));
+  }
+
+  /**
+   * Formats an error the way it is reported.
+   *
+   * @param line The line at which the error occurred.
+   * @param lexeme The text of the token which caused the error or {@code null}.
+   * @param message The error message.
+   * @return The formatted error.
+   */
+  public static String format(int line, String lexeme, String message) {
+    if (lexeme == null) {
+      return "[line " + (line + 1) + "] Error: " + message;
+    }
+
+    return "[line " + (line + 1) + "] Error at '" + lexeme + "': " + message;
+  }
+
+  /**
+   * Adds all errors of another error handler to this one.
+   *
+   * @param other The error handler to take the errors from.
+   */
+  public void merge(ErrorHandler other) {
+    for (final var message : other.errors) {
+      logError(message);
+    }
   }
 
   /**
@@ -52,7 +94,10 @@ public class ErrorHandler {
    * @param message The message of the error.
    */
   private void logError(String message) {
-    log.error(message);
+    if (logErrors) {
+      log.error(message);
+    }
+
     errors.add(message);
   }
 }
@@ -0,0 +1,205 @@
+package sh.sidd.asmi.compiler;
+
+import sh.sidd.asmi.ErrorHandler;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.*;
+import sh.sidd.asmi.data.ValueType;
+
+/**
+ * Visitor which determines the {@link ValueType} and the source lines for expressions.
+ *
+ * <p>It also resolves all variable names in their lexical scope and stores the slot of the
+ * resolved variable on each variable node, {@link VarStmt} and {@link AssignStmt}.
+ *
+ * <p>Expressions are flattened into the {@link ExprArena} and analyzed by a single loop over their
+ * nodes, so code generation can start right after this single pass.
+ */
+public class AnalysisVisitor implements Stmt.Visitor<Void> {
+
+  private final TraversalStack traversal = new TraversalStack();
+  private final ExprArena arena;
+  private final VariableEnv variableEnv;
+  private final ErrorHandler errorHandler;
+
+  public AnalysisVisitor(ExprArena arena, VariableEnv variableEnv, ErrorHandler errorHandler) {
+    this.arena = arena;
+    this.variableEnv = variableEnv;
+    this.errorHandler = errorHandler;
+  }
+
+  /**
+   * Adds an expression to the arena and determines the types and source lines of all its nodes.
+   *
+   * @param expr The expression to analyze.
+   * @return The type of the expression.
+   */
+  private ValueType analyze(Expr expr) {
+    final var root = arena.add(expr);
+
+    // Children always precede their parents, so they are analyzed once a parent is reached.
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      final var left = arena.getLeft(i);
+
+      switch (arena.getKind(i)) {
+        case BINARY -> {
+          final var right = arena.getRight(i);
+
+          arena.setValueType(i, getBinaryType(i));
+          arena.setLines(i, arena.getLineStart(left), arena.getLineEnd(right));
+        }
+        case GROUPING -> {
+          arena.setValueType(i, arena.getValueType(left));
+          arena.setLines(i, arena.getLineStart(left), arena.getLineEnd(left));
+        }
+        case UNARY -> {
+          arena.setValueType(i, arena.getValueType(left));
+          arena.setLines(i, arena.getLine(i), arena.getLineEnd(left));
+        }
+        case LITERAL -> {
+          arena.setValueType(i, ValueType.fromLiteral(arena.getValue(i)));
+          arena.setLines(i, arena.getLine(i), arena.getLine(i));
+        }
+        case VARIABLE -> {
+          resolveVariable(i);
+          arena.setLines(i, arena.getLine(i), arena.getLine(i));
+        }
+      }
+    }
+
+    return arena.getValueType(root);
+  }
+
+  /**
+   * Determines the type of a binary node. Comparisons and logical operators result in an int, which
+   * is 1 if the comparison holds and 0 otherwise.
+   *
+   * @param index The index of the binary node.
+   */
+  private ValueType getBinaryType(int index) {
+    if (arena.getTokenType(index).isLogical()) {
+      return ValueType.INT;
+    }
+
+    final var operandType = ValueType.findImplicitCastType(
+        arena.getValueType(arena.getLeft(index)), arena.getValueType(arena.getRight(index)));
+
+    if (operandType.isNumeric() && arena.getTokenType(index).isComparison()) {
+      return ValueType.INT;
+    }
+
+    return operandType;
+  }
+
+  /**
+   * Resolves the variable which a variable node reads in the current scope and stores its type and
+   * slot, so later passes never look it up by name again.
+   *
+   * @param index The index of the variable node.
+   */
+  private void resolveVariable(int index) {
+    final var symbol = arena.getSymbol(index);
+    final var valueType = variableEnv.findVariableType(symbol);
+
+    if (valueType == null) {
+      final var name = arena.getToken(index);
+
+      arena.setValueType(index, ValueType.UNKNOWN);
+      errorHandler.report(name, "Unknown variable: " + name.lexeme());
+      return;
+    }
+
+    arena.setValueType(index, valueType);
+    arena.setVariableSlot(index, variableEnv.findVariableIndex(symbol));
+  }
+
+  /**
+   * Analyzes a statement and all statements nested in it.
+   *
+   * @param stmt The statement to analyze.
+   */
+  public void visit(Stmt stmt) {
+    traversal.visit(stmt, this);
+  }
+
+  @Override
+  public Void visitExpressionStmt(ExpressionStmt stmt) {
+    analyze(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitPrintStmt(PrintStmt stmt) {
+    analyze(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitAssertStmt(AssertStmt stmt) {
+    analyze(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    try {
+      stmt.setVariableSlot(
+          variableEnv.defineVariable(stmt.getName(), analyze(stmt.getInitializer())));
+    } catch (VariableEnvException e) {
+      errorHandler.report(stmt.getName(), e.getMessage());
+    }
+
+    return null;
+  }
+
+  @Override
+  public Void visitAssignStmt(AssignStmt stmt) {
+    analyze(stmt.getValue());
+
+    try {
+      stmt.setVariableSlot(variableEnv.getVariableIndex(stmt.getName()));
+    } catch (VariableEnvException e) {
+      errorHandler.report(stmt.getName(), e.getMessage());
+    }
+
+    return null;
+  }
+
+  @Override
+  public Void visitBlockStmt(BlockStmt stmt) {
+    variableEnv.enterScope();
+    traversal.push(variableEnv::exitScope);
+    traversal.pushAll(stmt.getStatements(), this);
+
+    return null;
+  }
+
+  @Override
+  public Void visitDefStmt(DefStmt stmt) {
+    traversal.push(() -> stmt.getBlock().accept(this));
+    return null;
+  }
+
+  @Override
+  public Void visitIfStmt(IfStmt stmt) {
+    analyze(stmt.getCondition());
+
+    if (stmt.getElseBlock() != null) {
+      traversal.push(
+          () -> stmt.getThenBlock().accept(this), () -> stmt.getElseBlock().accept(this));
+    } else {
+      traversal.push(() -> stmt.getThenBlock().accept(this));
+    }
+
+    return null;
+  }
+
+  @Override
+  public Void visitWhileStmt(WhileStmt stmt) {
+    analyze(stmt.getCondition());
+    traversal.push(() -> stmt.getBlock().accept(this));
+
+    return null;
+  }
+}
@@ -260,18 +260,14 @@ public class ByteCodeWriter {
   }
 
   /**
-   * Writes the bytecode for to an `assert` statement.
+   * Writes the bytecode for a failed `assert` statement.
    *
-   * `assert` checks if the current value on the stack equals 0 and throws {@link AssertionError}
-   * if it is.
+   * Throws {@link AssertionError} unconditionally, so it has to be skipped via a jump if the
+   * asserted condition holds.
    *
    * @param message The message for the {@link AssertionError}.
    */
-  public void writeAssert(String message) {
-    final var continuation = new Label();
-
-    methodVisitor.visitJumpInsn(Opcodes.IFNE, continuation);
-
+  public void writeAssertionError(String message) {
     methodVisitor.visitTypeInsn(Opcodes.NEW, "java/lang/AssertionError");
     methodVisitor.visitInsn(Opcodes.DUP);
 
@@ -280,8 +276,6 @@ public class ByteCodeWriter {
     methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/AssertionError",
         "<init>", "(Ljava/lang/Object;)V", false);
     methodVisitor.visitInsn(Opcodes.ATHROW);
-
-    methodVisitor.visitLabel(continuation);
   }
 
   /**
@@ -295,6 +289,17 @@ public class ByteCodeWriter {
     writeCmp(valueType, Opcodes.IFEQ, Opcodes.IF_ICMPEQ);
   }
 
+  /**
+   * Writes *CMPNE for the given types.
+   *
+   * Pushes `1` onto the stack if the values are not equal, otherwise '0'.
+   *
+   * @param valueType The type of the current values.
+   */
+  public void writeNe(ValueType valueType) throws ByteCodeException {
+    writeCmp(valueType, Opcodes.IFNE, Opcodes.IF_ICMPNE);
+  }
+
   /**
    * Writes *CMPLT for the given types.
    *
@@ -356,26 +361,107 @@ public class ByteCodeWriter {
     final var continuationLabel = new Label();
     final var equalLabel = new Label();
 
+    writeCmpJump(valueType, jumpCheck, icmpCheck, equalLabel);
+
+    methodVisitor.visitInsn(Opcodes.ICONST_0);
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, continuationLabel);
+
+    methodVisitor.visitLabel(equalLabel);
+    methodVisitor.visitInsn(Opcodes.ICONST_1);
+
+    methodVisitor.visitLabel(continuationLabel);
+  }
+
+  /**
+   * Writes a generic *CMP for the given types which jumps to a label if the check is successful.
+   *
+   * Unlike {@link #writeCmp(ValueType, int, int)}, no intermediate `0` or `1` is pushed onto the
+   * stack, so conditions only need a single jump.
+   *
+   * @param valueType The type of the current values.
+   * @param jumpCheck The Opcode for checking the values, e.g. {@link Opcodes#IFEQ}
+   * @param icmpCheck The Opcode for checking the values as integers, e.g. {@link Opcodes#IF_ICMPEQ}
+   * @param label The label to jump to.
+   */
+  public void writeCmpJump(ValueType valueType, int jumpCheck, int icmpCheck, Label label)
+      throws ByteCodeException {
+    if(!valueType.isNumeric()) {
+      throw new ByteCodeException("Cannot compare non-numeric types.");
+    }
+
     if(valueType == ValueType.FLOAT) {
       methodVisitor.visitInsn(Opcodes.FCMPG);
-      methodVisitor.visitJumpInsn(jumpCheck, equalLabel);
+      methodVisitor.visitJumpInsn(jumpCheck, label);
     } else if(valueType == ValueType.DOUBLE) {
       methodVisitor.visitInsn(Opcodes.DCMPG);
-      methodVisitor.visitJumpInsn(jumpCheck, equalLabel);
+      methodVisitor.visitJumpInsn(jumpCheck, label);
     } else if(valueType == ValueType.LONG) {
       methodVisitor.visitInsn(Opcodes.LCMP);
-      methodVisitor.visitJumpInsn(jumpCheck, equalLabel);
+      methodVisitor.visitJumpInsn(jumpCheck, label);
     } else {
-      methodVisitor.visitJumpInsn(icmpCheck, equalLabel);
+      methodVisitor.visitJumpInsn(icmpCheck, label);
     }
+  }
 
-    methodVisitor.visitInsn(Opcodes.ICONST_0);
-    methodVisitor.visitJumpInsn(Opcodes.GOTO, continuationLabel);
+  /**
+   * Writes a comparison of the current integer value against `0` which jumps to a label if the
+   * check is successful.
+   *
+   * @param jumpCheck The Opcode for checking the value, e.g. {@link Opcodes#IFLT}
+   * @param label The label to jump to.
+   */
+  public void writeZeroCmpJump(int jumpCheck, Label label) {
+    methodVisitor.visitJumpInsn(jumpCheck, label);
+  }
 
-    methodVisitor.visitLabel(equalLabel);
-    methodVisitor.visitInsn(Opcodes.ICONST_1);
+  /**
+   * Returns the check which succeeds exactly if the given check fails.
+   *
+   * @param check A check like {@link Opcodes#IFLT} or {@link Opcodes#IF_ICMPLT}.
+   * @return The negated check, e.g. {@link Opcodes#IFGE} or {@link Opcodes#IF_ICMPGE}.
+   */
+  public static int negateCheck(int check) {
+    return switch(check) {
+      case Opcodes.IFEQ -> Opcodes.IFNE;
+      case Opcodes.IFNE -> Opcodes.IFEQ;
+      case Opcodes.IFLT -> Opcodes.IFGE;
+      case Opcodes.IFGE -> Opcodes.IFLT;
+      case Opcodes.IFGT -> Opcodes.IFLE;
+      case Opcodes.IFLE -> Opcodes.IFGT;
+      case Opcodes.IF_ICMPEQ -> Opcodes.IF_ICMPNE;
+      case Opcodes.IF_ICMPNE -> Opcodes.IF_ICMPEQ;
+      case Opcodes.IF_ICMPLT -> Opcodes.IF_ICMPGE;
+      case Opcodes.IF_ICMPGE -> Opcodes.IF_ICMPLT;
+      case Opcodes.IF_ICMPGT -> Opcodes.IF_ICMPLE;
+      case Opcodes.IF_ICMPLE -> Opcodes.IF_ICMPGT;
+      default -> throw new IllegalArgumentException("Cannot negate opcode " + check);
+    };
+  }
 
-    methodVisitor.visitLabel(continuationLabel);
+  /**
+   * Writes a left shift of the current integer value by a constant number of bits.
+   *
+   * @param valueType The type of the current value.
+   * @param bits The number of bits to shift by.
+   */
+  public void writeShl(ValueType valueType, int bits) throws ByteCodeException {
+    final var opcode = switch(valueType) {
+      case SHORT, INT -> Opcodes.ISHL;
+      case LONG -> Opcodes.LSHL;
+      default -> throw new ByteCodeException("Can only shift integer types.");
+    };
+
+    methodVisitor.visitLdcInsn(bits);
+    methodVisitor.visitInsn(opcode);
+  }
+
+  /**
+   * Duplicates the current value on the stack.
+   *
+   * @param valueType The type of the current value.
+   */
+  public void writeDup(ValueType valueType) {
+    methodVisitor.visitInsn(valueType.getSlotSize() == 2 ? Opcodes.DUP2 : Opcodes.DUP);
   }
 
   /**
@@ -408,6 +494,7 @@ public class ByteCodeWriter {
   public void storeVariable(ValueType valueType, int index) {
     final var opcode = switch(valueType) {
       case SHORT, INT -> Opcodes.ISTORE;
+      case LONG -> Opcodes.LSTORE;
       case FLOAT -> Opcodes.FSTORE;
       case DOUBLE -> Opcodes.DSTORE;
       default -> Opcodes.ASTORE;
@@ -425,6 +512,7 @@ public class ByteCodeWriter {
   public void loadVariable(ValueType valueType, int index) {
     final var opcode = switch(valueType) {
       case SHORT, INT -> Opcodes.ILOAD;
+      case LONG -> Opcodes.LLOAD;
       case FLOAT -> Opcodes.FLOAD;
       case DOUBLE -> Opcodes.DLOAD;
       default -> Opcodes.ALOAD;
@@ -434,51 +522,38 @@ public class ByteCodeWriter {
   }
 
   /**
-   * Writes the bytecode for an if-then-else block.
+   * Places a label at the current position of the method.
    *
-   * @param setupCondition A runnable which pushes 1 onto the stack if the 'if' condition is true.
-   *   If the condition is false 0 should be pushed to the stack.
-   * @param thenBlock A runnable which executes the then-block.
-   * @param elseBlock A runnable which executes the else-block.
+   * @param label The label to place.
    */
-  public void writeIfThenElse(Runnable setupCondition, Runnable thenBlock, Runnable elseBlock) {
-    final var continuationLabel = new Label();
-
-    setupCondition.run();
-
-    if(elseBlock == null) {
-      methodVisitor.visitJumpInsn(Opcodes.IFEQ, continuationLabel);
-      thenBlock.run();
-    } else {
-      final var elseLabel = new Label();
-
-      methodVisitor.visitJumpInsn(Opcodes.IFEQ, elseLabel);
-      thenBlock.run();
-      methodVisitor.visitJumpInsn(Opcodes.GOTO, continuationLabel);
-      methodVisitor.visitLabel(elseLabel);
-      elseBlock.run();
-    }
-
-    methodVisitor.visitLabel(continuationLabel);
+  public void writeLabel(Label label) {
+    methodVisitor.visitLabel(label);
   }
 
   /**
-   * Writes the bytecode for a while loop.
+   * Writes a jump which is taken if the current value on the stack is 0.
    *
-   * @param condition A runnable which pushes 1 onto the stack if the loop condition is true.
-   * @param block A runnable which executes the loop block.
+   * @param label The label to jump to.
    */
-  public void writeWhile(Runnable condition, Runnable block) {
-    final var loopConditionLabel = new Label();
-    final var loopExitLabel = new Label();
-
-    methodVisitor.visitLabel(loopConditionLabel);
-    condition.run();
-    methodVisitor.visitJumpInsn(Opcodes.IFEQ, loopExitLabel);
+  public void writeJumpIfFalse(Label label) {
+    methodVisitor.visitJumpInsn(Opcodes.IFEQ, label);
+  }
 
-    block.run();
-    methodVisitor.visitJumpInsn(Opcodes.GOTO, loopConditionLabel);
+  /**
+   * Writes a jump which is taken if the current value on the stack is not 0.
+   *
+   * @param label The label to jump to.
+   */
+  public void writeJumpIfTrue(Label label) {
+    methodVisitor.visitJumpInsn(Opcodes.IFNE, label);
+  }
 
-    methodVisitor.visitLabel(loopExitLabel);
+  /**
+   * Writes an unconditional jump.
+   *
+   * @param label The label to jump to.
+   */
+  public void writeGoto(Label label) {
+    methodVisitor.visitJumpInsn(Opcodes.GOTO, label);
   }
 }
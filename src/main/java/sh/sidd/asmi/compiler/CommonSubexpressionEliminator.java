@@ -0,0 +1,202 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.BlockStmt;
+import sh.sidd.asmi.data.Stmt.VarStmt;
+import sh.sidd.asmi.data.Stmt.WhileStmt;
+import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.data.ValueType;
+
+/**
+ * Optimization pass which computes repeated binary and unary nodes only once per basic block.
+ *
+ * <p>Each node gets a value number, so nodes which compute the same operation on the same values
+ * share a number. Variables are numbered by their slot and the number of assignments to them so
+ * far, so a reassignment invalidates all nodes which read the old value. Within a sequence of
+ * statements without any branches, the first node of each value number stores its result in a
+ * fresh local variable slot via {@link ExprArena#getStoreSlot} and later nodes of the same number
+ * load that slot via {@link ExprArena#getValueSlot} instead of being computed again.
+ *
+ * <p>The available values are dropped at the start and the end of each block, as well as for loop
+ * conditions, which are also reached from the end of the loop. Nodes in the right operand of
+ * {@code and} and {@code or} are never eliminated, as they only run depending on the left operand.
+ */
+class CommonSubexpressionEliminator extends StatementWalker {
+  private record Constant(Object value) {}
+
+  private record Load(int variableSlot, int version) {}
+
+  private record Slot(int slot) {}
+
+  private record Operation(TokenType operator, ValueType valueType, int left, int right) {}
+
+  private final ExprArena arena;
+  private final VariableEnv variableEnv;
+  private final HashMap<Object, Integer> valueNumbers = new HashMap<>();
+  private final HashMap<Long, Integer> availableValues = new HashMap<>();
+  private int[] versions = new int[64];
+  private int[] pendingNodes = new int[16];
+
+  CommonSubexpressionEliminator(ExprArena arena, VariableEnv variableEnv) {
+    this.arena = arena;
+    this.variableEnv = variableEnv;
+  }
+
+  @Override
+  public Void visitBlockStmt(BlockStmt stmt) {
+    availableValues.clear();
+    traversal.push(availableValues::clear);
+    return super.visitBlockStmt(stmt);
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    super.visitVarStmt(stmt);
+    invalidate(stmt.getVariableSlot());
+    return null;
+  }
+
+  @Override
+  public Void visitAssignStmt(AssignStmt stmt) {
+    super.visitAssignStmt(stmt);
+    invalidate(stmt.getVariableSlot());
+    return null;
+  }
+
+  @Override
+  public Void visitWhileStmt(WhileStmt stmt) {
+    traversal.push(() -> stmt.getBlock().accept(this));
+    return null;
+  }
+
+  @Override
+  protected void visitExpression(Expr expr) {
+    if (expr == null) {
+      return;
+    }
+
+    final var root = expr.getArenaIndex();
+    final var first = arena.getFirst(root);
+    final var numbers = numberValues(first, root);
+    var pendingCount = 0;
+
+    pendingNodes[pendingCount++] = root;
+
+    // Visits the nodes in the order of the code generation, so the first node of each value number
+    // is always computed before all others.
+    while (pendingCount > 0) {
+      final var entry = pendingNodes[--pendingCount];
+
+      if (entry < 0) {
+        availableValues.putIfAbsent(getAvailabilityKey(~entry, numbers[~entry - first]), ~entry);
+        continue;
+      }
+
+      if (arena.isConstant(entry) || arena.getValueSlot(entry) != ExprArena.NONE
+          || arena.getLeft(entry) == ExprArena.NONE) {
+        continue;
+      }
+
+      if (isCandidate(entry)) {
+        final var available =
+            availableValues.get(getAvailabilityKey(entry, numbers[entry - first]));
+
+        if (available != null) {
+          if (arena.getStoreSlot(available) == ExprArena.NONE) {
+            arena.setStoreSlot(available, variableEnv.defineTemporary(arena.getUsedType(available)));
+          }
+
+          arena.setValueSlot(entry, arena.getStoreSlot(available));
+          continue;
+        }
+      }
+
+      if (pendingCount + 3 > pendingNodes.length) {
+        pendingNodes = Arrays.copyOf(pendingNodes, pendingNodes.length * 2);
+      }
+
+      if (isCandidate(entry)) {
+        pendingNodes[pendingCount++] = ~entry;
+      }
+
+      // The right operand of a logical operator may be skipped at runtime, so none of its values
+      // can be made available.
+      if (arena.getRight(entry) != ExprArena.NONE
+          && !arena.getTokenType(entry).isLogical()) {
+        pendingNodes[pendingCount++] = arena.getRight(entry);
+      }
+
+      pendingNodes[pendingCount++] = arena.getLeft(entry);
+    }
+  }
+
+  /**
+   * Assigns value numbers to all nodes of an expression.
+   *
+   * @param first The index of the first node.
+   * @param root The index of the root node.
+   * @return The value numbers, indexed relative to the first node.
+   */
+  private int[] numberValues(int first, int root) {
+    final var numbers = new int[root - first + 1];
+
+    for (var i = first; i <= root; i++) {
+      final var left = arena.getLeft(i);
+      final Object value;
+
+      if (arena.isConstant(i)) {
+        value = new Constant(arena.getValue(i));
+      } else if (arena.getValueSlot(i) != ExprArena.NONE) {
+        value = new Slot(arena.getValueSlot(i));
+      } else {
+        value = switch (arena.getKind(i)) {
+          case LITERAL -> new Constant(arena.getValue(i));
+          case VARIABLE -> new Load(arena.getVariableSlot(i),
+              getVersion(arena.getVariableSlot(i)));
+          case GROUPING -> null;
+          case UNARY -> new Operation(arena.getTokenType(i), arena.getValueType(i),
+              numbers[left - first], ExprArena.NONE);
+          case BINARY -> new Operation(arena.getTokenType(i), arena.getOperandType(i),
+              numbers[left - first], numbers[arena.getRight(i) - first]);
+        };
+      }
+
+      // Groupings compute nothing, so they share the number of their child.
+      numbers[i - first] = value == null
+          ? numbers[left - first]
+          : valueNumbers.computeIfAbsent(value, key -> valueNumbers.size());
+    }
+
+    return numbers;
+  }
+
+  /** Checks whether a node may be computed once and loaded afterwards. */
+  private boolean isCandidate(int index) {
+    final var kind = arena.getKind(index);
+
+    return (kind == ExprArena.Kind.BINARY || kind == ExprArena.Kind.UNARY)
+        && arena.getUsedType(index).isNumeric();
+  }
+
+  /** Returns the key of a value in the available values, which also depends on its cast. */
+  private long getAvailabilityKey(int index, int number) {
+    return ((long) number << 8) | arena.getUsedType(index).ordinal();
+  }
+
+  private int getVersion(int variableSlot) {
+    return variableSlot < versions.length ? versions[variableSlot] : 0;
+  }
+
+  /** Invalidates all values which read the current value of a variable. */
+  private void invalidate(int variableSlot) {
+    if (variableSlot >= versions.length) {
+      versions = Arrays.copyOf(versions, Math.max(variableSlot + 1, versions.length * 2));
+    }
+
+    versions[variableSlot]++;
+  }
+}
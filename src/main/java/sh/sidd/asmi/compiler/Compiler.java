@@ -1,14 +1,20 @@
 package sh.sidd.asmi.compiler;
 
 import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
 import sh.sidd.asmi.ErrorHandler;
 import sh.sidd.asmi.data.Expr;
-import sh.sidd.asmi.data.Expr.*;
+import sh.sidd.asmi.data.ExprArena;
 import sh.sidd.asmi.data.Stmt;
 import sh.sidd.asmi.data.Stmt.*;
+import sh.sidd.asmi.data.TokenType;
 import sh.sidd.asmi.data.ValueType;
 import sh.sidd.asmi.scanner.SourceRetriever;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -17,20 +23,41 @@ import java.util.List;
  * See {@link sh.sidd.asmi.parser.Parser} on how {@link Stmt} are generated.
  */
 @Slf4j
-public class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+public class Compiler implements Stmt.Visitor<Void> {
 
   private final ErrorHandler errorHandler;
   private final ByteCodeWriter writer;
   private final List<Stmt> ast;
   private final SourceRetriever sourceRetriever;
   private final VariableEnv variableEnv = new VariableEnv();
+  private final ExprArena arena;
+  private final TraversalStack traversal = new TraversalStack();
+  private final LoopInvariantMover loopInvariantMover;
+  private int[] pendingNodes = new int[16];
+  private int pendingCount;
 
   public Compiler(ErrorHandler errorHandler, List<Stmt> ast,
       SourceRetriever sourceRetriever) {
+    this(errorHandler, ast, sourceRetriever, new ExprArena());
+  }
+
+  /**
+   * Creates a compiler for statements whose expressions were already added to the given arena by
+   * the {@link sh.sidd.asmi.parser.Parser}.
+   *
+   * @param errorHandler The handler to report errors to.
+   * @param ast The statements to compile.
+   * @param sourceRetriever Retrieves source lines for errors.
+   * @param arena The arena which holds the expressions of the statements.
+   */
+  public Compiler(ErrorHandler errorHandler, List<Stmt> ast,
+      SourceRetriever sourceRetriever, ExprArena arena) {
     this.errorHandler = errorHandler;
+    this.arena = arena;
     this.sourceRetriever = sourceRetriever;
     writer = new ByteCodeWriter();
     this.ast = ast;
+    loopInvariantMover = new LoopInvariantMover(arena, variableEnv);
   }
 
   /**
@@ -39,23 +66,32 @@ public class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
    * Currently, all code is written into a single method.
    */
   public void compile() {
-    final var valueTypeVisitor = new ValueTypeVisitor(variableEnv, errorHandler);
-    final var sourceLineVisitor = new SourceLineVisitor();
+    final var analysisVisitor = new AnalysisVisitor(arena, variableEnv, errorHandler);
 
     if(ast == null) {
       return;
     }
 
     for(final var stmt : ast) {
-      stmt.accept(valueTypeVisitor);
-      stmt.accept(sourceLineVisitor);
+      analysisVisitor.visit(stmt);
     }
 
+    // The optimizations and the code generation rely on a fully analyzed program.
+    if(errorHandler.hasErrors()) {
+      return;
+    }
+
+    new ConstantFolder(arena).fold(ast);
+    new DeadCodeEliminator(arena).eliminate(ast);
+    loopInvariantMover.walk(ast);
+    new CommonSubexpressionEliminator(arena, variableEnv).walk(ast);
+    new SlotAllocator(arena, variableEnv, loopInvariantMover).allocate(ast);
+
     writer.startClass("sh/sidd/asmi/Compiled");
     writer.startMethod("main");
 
     for(final var stmt : ast) {
-      stmt.accept(this);
+      traversal.visit(stmt, this);
     }
 
     if(!errorHandler.hasErrors()) {
@@ -84,121 +120,459 @@ public class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     }
   }
 
-  @Override
-  public Void visitBinaryExpr(BinaryExpr expr) {
-    final var leftType = expr.getLeft().getValueType();
-    final var rightType = expr.getRight().getValueType();
-    final var resultType = ValueType.findImplicitCastType(leftType, rightType);
+  /**
+   * Writes the bytecode of an expression.
+   *
+   * @param expr The expression to write. Must already be analyzed.
+   */
+  private void writeExpression(Expr expr) {
+    writeExpression(expr.getArenaIndex(), false);
+  }
 
-    if(!resultType.isNumeric()) {
-      errorHandler.report(expr.getOperator(), "Operands must be numeric.");
-      return null;
+  /**
+   * Writes the bytecode of an expression.
+   *
+   * <p>The nodes are visited depth-first via an explicit stack and written once all their children
+   * are written. Constant nodes are written as a single constant and nodes whose value is held in a
+   * local variable as a single load, both without their children. Logical operators are written
+   * as conditions, as their right operand may be skipped.
+   *
+   * <p>Writing a logical operator writes its operands via nested calls, which share the stack of
+   * pending nodes and only work above the nodes which are still pending for the outer call.
+   *
+   * @param root The index of the root node.
+   * @param computeRoot Whether to compute the root even if its value is held in a local variable.
+   */
+  private void writeExpression(int root, boolean computeRoot) {
+    final var base = pendingCount;
+
+    if(pendingCount == pendingNodes.length) {
+      pendingNodes = Arrays.copyOf(pendingNodes, pendingNodes.length * 2);
     }
 
-    try {
-      expr.getLeft().accept(this);
-      if(leftType != resultType) {
-        writer.writeCast(leftType, resultType);
+    pendingNodes[pendingCount++] = root;
+
+    while(pendingCount > base) {
+      final var entry = pendingNodes[--pendingCount];
+
+      if(entry < 0) {
+        writeNode(~entry);
+      } else if(arena.getValueSlot(entry) != ExprArena.NONE && !(computeRoot && entry == root)) {
+        writer.loadVariable(arena.getUsedType(entry), arena.getValueSlot(entry));
+      } else if(arena.isConstant(entry) || arena.getLeft(entry) == ExprArena.NONE) {
+        writeNode(entry);
+      } else if(isLogical(entry)) {
+        writeLogicalValue(entry);
+      } else {
+        if(pendingCount + 3 > pendingNodes.length) {
+          pendingNodes = Arrays.copyOf(pendingNodes, pendingNodes.length * 2);
+        }
+
+        // The complement marks that the children of the node were already pushed.
+        pendingNodes[pendingCount++] = ~entry;
+
+        final var reduction = findReduction(entry);
+
+        if(reduction != null) {
+          pendingNodes[pendingCount++] = reduction.operand();
+          continue;
+        }
+
+        if(arena.getRight(entry) != ExprArena.NONE) {
+          pendingNodes[pendingCount++] = arena.getRight(entry);
+        }
+
+        pendingNodes[pendingCount++] = arena.getLeft(entry);
       }
+    }
+  }
 
-      expr.getRight().accept(this);
-      if(rightType != resultType) {
-        writer.writeCast(rightType, resultType);
+  /**
+   * Writes a single node whose children are already written.
+   *
+   * @param index The index of the node.
+   */
+  private void writeNode(int index) {
+    try {
+      if(arena.isConstant(index)) {
+        writeConstant(index);
+        return;
       }
 
-      switch(expr.getOperator().tokenType()) {
-        case PLUS -> writer.writeAdd(resultType);
-        case MINUS -> writer.writeSub(resultType);
-        case STAR -> writer.writeMul(resultType);
-        case SLASH -> writer.writeDiv(resultType);
-        case EQUAL_EQUAL -> writer.writeCmp(resultType);
-        case BANG_EQUAL -> {
-          writer.writeCmp(resultType);
-          writer.writeNeg(resultType);
-        }
-        case LESS -> writer.writeLt(resultType);
-        case LESS_EQUAL -> writer.writeLe(resultType);
-        case GREATER -> writer.writeGt(resultType);
-        case GREATER_EQUAL -> writer.writeGe(resultType);
-        default -> errorHandler.report(expr.getOperator(), "Expected binary operator.");
+      switch(arena.getKind(index)) {
+        case BINARY -> writeBinary(index);
+        case GROUPING, LITERAL -> {}
+        case UNARY -> writeUnary(index);
+        case VARIABLE -> writer.loadVariable(arena.getValueType(index),
+            arena.getVariableSlot(index));
       }
+
+      writeUsage(index);
     } catch (ByteCodeException ex) {
-      errorHandler.report(expr.getOperator(), ex.getMessage());
+      errorHandler.report(arena.getToken(index), ex.getMessage());
     }
+  }
 
-    return null;
+  /**
+   * Prepares the computed value of a node for its usage, i.e. casts it to the operand type of its
+   * parent and stores it into its store slot.
+   *
+   * @param index The index of the node.
+   */
+  private void writeUsage(int index) throws ByteCodeException {
+    final var castType = arena.getCastType(index);
+
+    if(castType != null) {
+      writer.writeCast(arena.getValueType(index), castType);
+    }
+
+    if(arena.getStoreSlot(index) != ExprArena.NONE) {
+      writer.writeDup(arena.getUsedType(index));
+      writer.storeVariable(arena.getUsedType(index), arena.getStoreSlot(index));
+    }
   }
 
-  @Override
-  public Void visitGroupingExpr(GroupingExpr expr) {
-    return expr.getExpr().accept(this);
+  /**
+   * Writes the value of a logical operator, which is 1 if it holds and 0 otherwise.
+   *
+   * @param index The index of the logical node.
+   */
+  private void writeLogicalValue(int index) {
+    final var falseLabel = new Label();
+    final var continuationLabel = new Label();
+    final var steps = new ArrayDeque<Runnable>();
+
+    pushLogicalSteps(steps, index, false, falseLabel);
+    runSteps(steps);
+
+    writer.writeConstant(1);
+    writer.writeGoto(continuationLabel);
+    writer.writeLabel(falseLabel);
+    writer.writeConstant(0);
+    writer.writeLabel(continuationLabel);
+
+    try {
+      writeUsage(index);
+    } catch (ByteCodeException ex) {
+      errorHandler.report(arena.getToken(index), ex.getMessage());
+    }
   }
 
-  @Override
-  public Void visitLiteralExpr(LiteralExpr expr) {
-    writer.writeConstant(expr.getValue());
-    return null;
+  private boolean isLogical(int index) {
+    return arena.getKind(index) == ExprArena.Kind.BINARY
+        && arena.getTokenType(index).isLogical();
   }
 
-  @Override
-  public Void visitUnaryExpr(UnaryExpr expr) {
-    final var rightType = expr.getRight().getValueType();
+  /**
+   * Writes the value of a constant node, already cast to the type it is used as.
+   *
+   * @param index The index of the node.
+   */
+  private void writeConstant(int index) {
+    final var castType = arena.getCastType(index);
 
-    try {
-      switch(expr.getOperator().tokenType()) {
-        case MINUS -> {
-          if(!rightType.isNumeric()) {
-            errorHandler.report(expr.getOperator(), "Can only negate numeric values.");
-            return null;
-          }
-
-          expr.getRight().accept(this);
-          writer.writeNeg(rightType);
-        }
-        default -> errorHandler.report(expr.getOperator(), "Expected unary operator.");
+    if(castType == null) {
+      writer.writeConstant(arena.getValue(index));
+    } else {
+      writer.writeConstant(ConstantFolder.convert(arena.getValue(index), castType));
+    }
+  }
+
+  /**
+   * Writes a condition which jumps to a label depending on its result.
+   *
+   * <p>Comparisons jump directly on the compared values instead of pushing their result first.
+   * Comparisons of integers against `0` skip the `0` entirely and constant conditions are written as
+   * an unconditional jump or nothing at all. Logical operators are written as a chain of jumps,
+   * which skips their right operand as soon as the result is known.
+   *
+   * @param condition The condition to write.
+   * @param jumpIfTrue Whether to jump if the condition holds or if it does not.
+   * @param label The label to jump to.
+   */
+  private void writeCondition(Expr condition, boolean jumpIfTrue, Label label) {
+    final var steps = new ArrayDeque<Runnable>();
+
+    writeConditionNode(steps, condition.getArenaIndex(), jumpIfTrue, label);
+    runSteps(steps);
+  }
+
+  /**
+   * Writes a single node of a condition. Nested conditions of logical operators are pushed as steps
+   * instead of being written directly, so the nesting depth is only limited by the heap.
+   *
+   * @param steps The pending steps of the condition.
+   * @param index The index of the node.
+   * @param jumpIfTrue Whether to jump if the node holds or if it does not.
+   * @param label The label to jump to.
+   */
+  private void writeConditionNode(Deque<Runnable> steps, int index, boolean jumpIfTrue,
+      Label label) {
+    var root = index;
+
+    while(arena.getKind(root) == ExprArena.Kind.GROUPING && !arena.isConstant(root)) {
+      root = arena.getLeft(root);
+    }
+
+    final var constantCondition = DeadCodeEliminator.getConstantCondition(arena, root);
+
+    if(constantCondition != null) {
+      if(constantCondition == jumpIfTrue) {
+        writer.writeGoto(label);
       }
-    } catch (ByteCodeException ex) {
-      errorHandler.report(expr.getOperator(), ex.getMessage());
+
+      return;
     }
 
-    return null;
+    // Nodes which share their value with other nodes have to compute it.
+    final var isShared = arena.getValueSlot(root) != ExprArena.NONE
+        || arena.getStoreSlot(root) != ExprArena.NONE;
+
+    if(!isShared && isLogical(root)) {
+      pushLogicalSteps(steps, root, jumpIfTrue, label);
+      return;
+    }
+
+    if(!isShared && arena.getKind(root) == ExprArena.Kind.BINARY
+        && arena.getTokenType(root).isComparison()
+        && arena.getOperandType(root).isNumeric()) {
+      try {
+        writeComparisonJump(root, jumpIfTrue, label);
+      } catch (ByteCodeException ex) {
+        errorHandler.report(arena.getToken(root), ex.getMessage());
+      }
+
+      return;
+    }
+
+    writeExpression(root, false);
+
+    if(jumpIfTrue) {
+      writer.writeJumpIfTrue(label);
+    } else {
+      writer.writeJumpIfFalse(label);
+    }
   }
 
-  @Override
-  public Void visitVariableExpr(VariableExpr expr) {
-    try {
-      writer.loadVariable(expr.getValueType(),
-          variableEnv.getVariableIndex(expr.getName().lexeme()));
-    } catch (VariableEnvException e) {
-      errorHandler.report(expr.getName(), e.getMessage());
+  /**
+   * Pushes the steps which write both operands of a logical operator as conditions.
+   *
+   * @param steps The pending steps of the condition.
+   * @param index The index of the logical node.
+   * @param jumpIfTrue Whether to jump if the operator holds or if it does not.
+   * @param label The label to jump to.
+   */
+  private void pushLogicalSteps(Deque<Runnable> steps, int index, boolean jumpIfTrue,
+      Label label) {
+    final var left = arena.getLeft(index);
+    final var right = arena.getRight(index);
+
+    if(!isConditionOperand(left) || !isConditionOperand(right)) {
+      errorHandler.report(arena.getToken(index), "Operands must be integers or booleans.");
+      return;
     }
 
-    return null;
+    final var isAnd = arena.getTokenType(index) == TokenType.AND;
+
+    // A failing `and` and a holding `or` are decided by either operand. Otherwise, the left operand
+    // may decide the opposite result, which skips the right operand.
+    if(isAnd != jumpIfTrue) {
+      steps.push(() -> writeConditionNode(steps, right, jumpIfTrue, label));
+      steps.push(() -> writeConditionNode(steps, left, jumpIfTrue, label));
+    } else {
+      final var skipLabel = new Label();
+
+      steps.push(() -> writer.writeLabel(skipLabel));
+      steps.push(() -> writeConditionNode(steps, right, jumpIfTrue, label));
+      steps.push(() -> writeConditionNode(steps, left, !jumpIfTrue, skipLabel));
+    }
+  }
+
+  /** Checks whether a node can be used as an operand of a logical operator. */
+  private boolean isConditionOperand(int index) {
+    return arena.getValueType(index).isComputedAsInt()
+        || arena.getValue(index) instanceof Boolean;
+  }
+
+  private static void runSteps(Deque<Runnable> steps) {
+    while(!steps.isEmpty()) {
+      steps.pop().run();
+    }
+  }
+
+  private void writeComparisonJump(int index, boolean jumpIfTrue, Label label)
+      throws ByteCodeException {
+    final var operandType = arena.getOperandType(index);
+    final var left = arena.getLeft(index);
+    final var right = arena.getRight(index);
+    var operator = arena.getTokenType(index);
+    final boolean zeroComparison;
+
+    if(!operandType.isComputedAsInt()) {
+      zeroComparison = false;
+      writeExpression(left, false);
+      writeExpression(right, false);
+    } else if(isZero(right)) {
+      zeroComparison = true;
+      writeExpression(left, false);
+    } else if(isZero(left)) {
+      zeroComparison = true;
+      operator = swapOperands(operator);
+      writeExpression(right, false);
+    } else {
+      zeroComparison = false;
+      writeExpression(left, false);
+      writeExpression(right, false);
+    }
+
+    var jumpCheck = getJumpCheck(operator);
+    var icmpCheck = getIcmpCheck(operator);
+
+    if(!jumpIfTrue) {
+      jumpCheck = ByteCodeWriter.negateCheck(jumpCheck);
+      icmpCheck = ByteCodeWriter.negateCheck(icmpCheck);
+    }
+
+    if(zeroComparison) {
+      writer.writeZeroCmpJump(jumpCheck, label);
+    } else {
+      writer.writeCmpJump(operandType, jumpCheck, icmpCheck, label);
+    }
+  }
+
+  private boolean isZero(int index) {
+    return arena.isConstant(index) && arena.getValue(index) instanceof Number number
+        && number.doubleValue() == 0;
+  }
+
+  /** Returns the operator which gives the same result if both operands are swapped. */
+  private static TokenType swapOperands(TokenType operator) {
+    return switch(operator) {
+      case LESS -> TokenType.GREATER;
+      case LESS_EQUAL -> TokenType.GREATER_EQUAL;
+      case GREATER -> TokenType.LESS;
+      case GREATER_EQUAL -> TokenType.LESS_EQUAL;
+      default -> operator;
+    };
+  }
+
+  private static int getJumpCheck(TokenType operator) {
+    return switch(operator) {
+      case EQUAL_EQUAL -> Opcodes.IFEQ;
+      case BANG_EQUAL -> Opcodes.IFNE;
+      case LESS -> Opcodes.IFLT;
+      case LESS_EQUAL -> Opcodes.IFLE;
+      case GREATER -> Opcodes.IFGT;
+      case GREATER_EQUAL -> Opcodes.IFGE;
+      default -> throw new IllegalArgumentException("Expected comparison: " + operator);
+    };
+  }
+
+  private static int getIcmpCheck(TokenType operator) {
+    return switch(operator) {
+      case EQUAL_EQUAL -> Opcodes.IF_ICMPEQ;
+      case BANG_EQUAL -> Opcodes.IF_ICMPNE;
+      case LESS -> Opcodes.IF_ICMPLT;
+      case LESS_EQUAL -> Opcodes.IF_ICMPLE;
+      case GREATER -> Opcodes.IF_ICMPGT;
+      case GREATER_EQUAL -> Opcodes.IF_ICMPGE;
+      default -> throw new IllegalArgumentException("Expected comparison: " + operator);
+    };
+  }
+
+  /**
+   * Finds a cheaper replacement for a binary node, see {@link StrengthReducer}.
+   *
+   * @param index The index of the node.
+   * @return The replacement or {@code null} if the node is not binary or has no replacement.
+   */
+  private StrengthReducer.Reduction findReduction(int index) {
+    if(arena.getKind(index) != ExprArena.Kind.BINARY) {
+      return null;
+    }
+
+    return StrengthReducer.find(arena, index, arena.getOperandType(index));
+  }
+
+  private void writeBinary(int index) throws ByteCodeException {
+    final var resultType = arena.getOperandType(index);
+
+    if(!resultType.isNumeric()) {
+      errorHandler.report(arena.getToken(index), "Operands must be numeric.");
+      return;
+    }
+
+    final var reduction = findReduction(index);
+
+    if(reduction != null) {
+      switch(reduction.kind()) {
+        case IDENTITY -> {}
+        case SHIFT_LEFT -> writer.writeShl(resultType, reduction.bits());
+        case ADD_SELF -> {
+          writer.writeDup(resultType);
+          writer.writeAdd(resultType);
+        }
+      }
+
+      return;
+    }
+
+    switch(arena.getTokenType(index)) {
+      case PLUS -> writer.writeAdd(resultType);
+      case MINUS -> writer.writeSub(resultType);
+      case STAR -> writer.writeMul(resultType);
+      case SLASH -> writer.writeDiv(resultType);
+      case EQUAL_EQUAL -> writer.writeCmp(resultType);
+      case BANG_EQUAL -> writer.writeNe(resultType);
+      case LESS -> writer.writeLt(resultType);
+      case LESS_EQUAL -> writer.writeLe(resultType);
+      case GREATER -> writer.writeGt(resultType);
+      case GREATER_EQUAL -> writer.writeGe(resultType);
+      default -> errorHandler.report(arena.getToken(index), "Expected binary operator.");
+    }
+  }
+
+  private void writeUnary(int index) throws ByteCodeException {
+    final var rightType = arena.getValueType(arena.getLeft(index));
+
+    switch(arena.getTokenType(index)) {
+      case MINUS -> {
+        if(!rightType.isNumeric()) {
+          errorHandler.report(arena.getToken(index), "Can only negate numeric values.");
+          return;
+        }
+
+        writer.writeNeg(rightType);
+      }
+      default -> errorHandler.report(arena.getToken(index), "Expected unary operator.");
+    }
   }
 
   @Override
   public Void visitExpressionStmt(ExpressionStmt stmt) {
-    stmt.getExpression().accept(this);
+    writeExpression(stmt.getExpression());
 
     return null;
   }
 
   @Override
   public Void visitPrintStmt(PrintStmt stmt) {
-    final var valueType = stmt.getExpression().getValueType();
+    final var valueType = arena.getValueType(stmt.getExpression().getArenaIndex());
 
-    writer.writePrint(valueType, () -> stmt.getExpression().accept(this));
+    writer.writePrint(valueType, () -> writeExpression(stmt.getExpression()));
 
     return null;
   }
 
   @Override
   public Void visitAssertStmt(AssertStmt stmt) {
-    stmt.getExpression().accept(this);
+    final var continuationLabel = new Label();
+    final var root = stmt.getExpression().getArenaIndex();
 
-    writer.writeAssert(sourceRetriever.getLines(
-        stmt.getExpression().getLineStart(),
-        stmt.getExpression().getLineEnd()));
+    writeCondition(stmt.getExpression(), true, continuationLabel);
+    writer.writeAssertionError(
+        sourceRetriever.getLines(arena.getLineStart(root), arena.getLineEnd(root)));
+    writer.writeLabel(continuationLabel);
 
     return null;
   }
@@ -206,69 +580,90 @@ public class Compiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
   @Override
   public Void visitVarStmt(VarStmt stmt) {
     if(stmt.getInitializer() != null) {
-      stmt.getInitializer().accept(this);
+      writeExpression(stmt.getInitializer());
     }
 
-    try {
-      writer.storeVariable(stmt.getInitializer().getValueType(),
-          variableEnv.getVariableIndex(stmt.getName().lexeme()));
-    } catch (VariableEnvException e) {
-      errorHandler.report(stmt.getName(), e.getMessage());
-    }
+    writer.storeVariable(arena.getValueType(stmt.getInitializer().getArenaIndex()),
+        stmt.getVariableSlot());
 
     return null;
   }
 
   @Override
   public Void visitAssignStmt(AssignStmt stmt) {
-    stmt.getValue().accept(this);
+    writeExpression(stmt.getValue());
 
-    try {
-      writer.storeVariable(stmt.getValue().getValueType(),
-          variableEnv.getVariableIndex(stmt.getName().lexeme()));
-    } catch (VariableEnvException e) {
-      errorHandler.report(stmt.getName(), e.getMessage());
-    }
+    writer.storeVariable(arena.getValueType(stmt.getValue().getArenaIndex()),
+        stmt.getVariableSlot());
 
     return null;
   }
 
   @Override
   public Void visitBlockStmt(BlockStmt stmt) {
-    for(final var s : stmt.getStatements()) {
-      s.accept(this);
-    }
-
+    traversal.pushAll(stmt.getStatements(), this);
     return null;
   }
 
   @Override
   public Void visitDefStmt(DefStmt stmt) {
-    stmt.getBlock().accept(this);
+    traversal.push(() -> stmt.getBlock().accept(this));
     return null;
   }
 
   @Override
   public Void visitIfStmt(IfStmt stmt) {
-    Runnable elseRunnable = null;
-
-    if(stmt.getElseBlock() != null) {
-      elseRunnable = () -> stmt.getElseBlock().accept(this);
+    final var continuationLabel = new Label();
+
+    if(stmt.getElseBlock() == null) {
+      writeCondition(stmt.getCondition(), false, continuationLabel);
+
+      traversal.push(
+          () -> stmt.getThenBlock().accept(this),
+          () -> writer.writeLabel(continuationLabel));
+    } else {
+      final var elseLabel = new Label();
+
+      writeCondition(stmt.getCondition(), false, elseLabel);
+
+      traversal.push(
+          () -> stmt.getThenBlock().accept(this),
+          () -> {
+            writer.writeGoto(continuationLabel);
+            writer.writeLabel(elseLabel);
+          },
+          () -> stmt.getElseBlock().accept(this),
+          () -> writer.writeLabel(continuationLabel));
     }
 
-    writer.writeIfThenElse(
-        () -> stmt.getCondition().accept(this),
-        () -> stmt.getThenBlock().accept(this),
-        elseRunnable);
-
     return null;
   }
 
+  /**
+   * Writes a while loop in inverted form.
+   *
+   * <p>A guard skips the loop if its condition fails initially. The condition is repeated after the
+   * body and jumps back to its start, so each iteration only runs a single backward branch.
+   */
   @Override
   public Void visitWhileStmt(WhileStmt stmt) {
-    writer.writeWhile(
-        () -> stmt.getCondition().accept(this),
-        () -> stmt.getBlock().accept(this));
+    final var loopBodyLabel = new Label();
+    final var loopExitLabel = new Label();
+
+    for(final var invariant : loopInvariantMover.getInvariants(stmt)) {
+      writeExpression(invariant, true);
+      writer.storeVariable(arena.getUsedType(invariant), arena.getValueSlot(invariant));
+    }
+
+    writeCondition(stmt.getCondition(), false, loopExitLabel);
+    writer.writeLabel(loopBodyLabel);
+
+    traversal.push(
+        () -> stmt.getBlock().accept(this),
+        () -> {
+          writeCondition(stmt.getCondition(), true, loopBodyLabel);
+          writer.writeLabel(loopExitLabel);
+        });
 
     return null;
   }
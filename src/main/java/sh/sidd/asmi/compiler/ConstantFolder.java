@@ -0,0 +1,279 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.VarStmt;
+import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.data.ValueType;
+
+/**
+ * Optimization pass which evaluates expressions with constant operands at compile time.
+ *
+ * <p>Arithmetic, comparisons and the implicit casts of their operands are folded over literals.
+ * Variables which are never reassigned after their definition propagate the constant value of their
+ * initializer. Folded nodes are marked as constant in the {@link ExprArena}, so the code generation
+ * emits their value instead of their subtree. Folding follows the semantics of the emitted
+ * bytecode exactly, e.g. integer division by zero is left to fail at runtime.
+ *
+ * <p>Runs after the {@link AnalysisVisitor}, as it relies on the value types of all nodes.
+ */
+class ConstantFolder extends StatementWalker {
+  private final ExprArena arena;
+  private final BitSet constantVariables = new BitSet();
+  private final BitSet mutableVariables = new BitSet();
+  private Object[] constantValues = new Object[64];
+
+  ConstantFolder(ExprArena arena) {
+    this.arena = arena;
+  }
+
+  /**
+   * Folds all expressions of the given statements.
+   *
+   * @param statements The analyzed statements.
+   */
+  void fold(List<Stmt> statements) {
+    findMutableVariables(statements);
+    walk(statements);
+  }
+
+  /** Finds all variables which are assigned after their definition. */
+  private void findMutableVariables(List<Stmt> statements) {
+    new StatementWalker() {
+      @Override
+      protected void visitExpression(Expr expr) {}
+
+      @Override
+      public Void visitAssignStmt(AssignStmt stmt) {
+        mutableVariables.set(stmt.getVariableSlot());
+        return null;
+      }
+    }.walk(statements);
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    super.visitVarStmt(stmt);
+
+    final var slot = stmt.getVariableSlot();
+    final var root = stmt.getInitializer().getArenaIndex();
+
+    if (!mutableVariables.get(slot) && arena.isConstant(root)
+        && arena.getValueType(root).isNumeric()) {
+      if (slot >= constantValues.length) {
+        constantValues = Arrays.copyOf(constantValues, Math.max(slot + 1, slot * 2));
+      }
+
+      constantVariables.set(slot);
+      constantValues[slot] = arena.getValue(root);
+    }
+
+    return null;
+  }
+
+  @Override
+  protected void visitExpression(Expr expr) {
+    final var root = expr.getArenaIndex();
+
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      final var left = arena.getLeft(i);
+
+      switch (arena.getKind(i)) {
+        case BINARY -> foldBinary(i);
+        case GROUPING -> {
+          if (arena.isConstant(left)) {
+            arena.setConstant(i, arena.getValue(left));
+          }
+        }
+        case UNARY -> {
+          if (arena.isConstant(left) && arena.getValueType(left).isNumeric()
+              && arena.getTokenType(i) == TokenType.MINUS) {
+            arena.setConstant(i, negate(arena.getValue(left), arena.getValueType(left)));
+          }
+        }
+        case VARIABLE -> {
+          final var slot = arena.getVariableSlot(i);
+
+          if (constantVariables.get(slot)) {
+            arena.setConstant(i, constantValues[slot]);
+          }
+        }
+        case LITERAL -> {}
+      }
+    }
+  }
+
+  private void foldBinary(int index) {
+    final var left = arena.getLeft(index);
+    final var right = arena.getRight(index);
+
+    if (!arena.isConstant(left) || !arena.isConstant(right)) {
+      return;
+    }
+
+    if (arena.getTokenType(index).isLogical()) {
+      foldLogical(index);
+      return;
+    }
+
+    final var operandType = ValueType.findImplicitCastType(
+        arena.getValueType(left), arena.getValueType(right));
+
+    if (!operandType.isNumeric()) {
+      return;
+    }
+
+    final var value = evaluate(arena.getTokenType(index), operandType,
+        (Number) arena.getValue(left), (Number) arena.getValue(right));
+
+    if (value != null) {
+      arena.setConstant(index, value);
+    }
+  }
+
+  private void foldLogical(int index) {
+    final var left = DeadCodeEliminator.getConstantCondition(arena, arena.getLeft(index));
+    final var right = DeadCodeEliminator.getConstantCondition(arena, arena.getRight(index));
+
+    if (left == null || right == null) {
+      return;
+    }
+
+    final var result = arena.getTokenType(index) == TokenType.AND
+        ? left && right
+        : left || right;
+
+    arena.setConstant(index, result ? 1 : 0);
+  }
+
+  /**
+   * Converts a constant to the given numeric type like the corresponding cast opcode.
+   *
+   * @param value The constant to convert.
+   * @param valueType The type to convert to.
+   * @return The converted constant.
+   */
+  static Object convert(Object value, ValueType valueType) {
+    final var number = (Number) value;
+
+    return switch (valueType) {
+      case SHORT -> number.shortValue();
+      case INT -> number.intValue();
+      case LONG -> number.longValue();
+      case FLOAT -> number.floatValue();
+      case DOUBLE -> number.doubleValue();
+      default -> throw new IllegalArgumentException("Cannot convert to " + valueType);
+    };
+  }
+
+  private static Object negate(Object value, ValueType valueType) {
+    final var number = (Number) value;
+
+    return switch (valueType) {
+      case SHORT, INT -> -number.intValue();
+      case LONG -> -number.longValue();
+      case FLOAT -> -number.floatValue();
+      case DOUBLE -> -number.doubleValue();
+      default -> throw new IllegalArgumentException("Cannot negate " + valueType);
+    };
+  }
+
+  /**
+   * Evaluates a binary operation.
+   *
+   * @return The result or {@code null} if the operation can not be evaluated at compile time.
+   */
+  private static Object evaluate(TokenType operator, ValueType operandType, Number left,
+      Number right) {
+    return switch (operandType) {
+      case SHORT, INT -> {
+        final var a = left.intValue();
+        final var b = right.intValue();
+
+        yield switch (operator) {
+          case PLUS -> a + b;
+          case MINUS -> a - b;
+          case STAR -> a * b;
+          case SLASH -> b == 0 ? null : a / b;
+          default -> compare(operator, Integer.compare(a, b));
+        };
+      }
+      case LONG -> {
+        final var a = left.longValue();
+        final var b = right.longValue();
+
+        yield switch (operator) {
+          case PLUS -> a + b;
+          case MINUS -> a - b;
+          case STAR -> a * b;
+          case SLASH -> b == 0 ? null : a / b;
+          default -> compare(operator, Long.compare(a, b));
+        };
+      }
+      case FLOAT -> {
+        final var a = left.floatValue();
+        final var b = right.floatValue();
+
+        yield switch (operator) {
+          case PLUS -> a + b;
+          case MINUS -> a - b;
+          case STAR -> a * b;
+          case SLASH -> a / b;
+          default -> compare(operator, compareG(a, b));
+        };
+      }
+      case DOUBLE -> {
+        final var a = left.doubleValue();
+        final var b = right.doubleValue();
+
+        yield switch (operator) {
+          case PLUS -> a + b;
+          case MINUS -> a - b;
+          case STAR -> a * b;
+          case SLASH -> a / b;
+          default -> compare(operator, compareG(a, b));
+        };
+      }
+      default -> null;
+    };
+  }
+
+  /** Compares two floating point values like FCMPG and DCMPG, i.e. NaN compares as greater. */
+  private static int compareG(double a, double b) {
+    if (a < b) {
+      return -1;
+    } else if (a == b) {
+      return 0;
+    }
+
+    return 1;
+  }
+
+  /**
+   * Evaluates a comparison operator on the result of a three-way comparison.
+   *
+   * @return 1 if the comparison holds, 0 if not or {@code null} for other operators.
+   */
+  private static Object compare(TokenType operator, int comparison) {
+    final boolean result;
+
+    switch (operator) {
+      case EQUAL_EQUAL -> result = comparison == 0;
+      case BANG_EQUAL -> result = comparison != 0;
+      case LESS -> result = comparison < 0;
+      case LESS_EQUAL -> result = comparison <= 0;
+      case GREATER -> result = comparison > 0;
+      case GREATER_EQUAL -> result = comparison >= 0;
+      default -> {
+        return null;
+      }
+    }
+
+    return result ? 1 : 0;
+  }
+}
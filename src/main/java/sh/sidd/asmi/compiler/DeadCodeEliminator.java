@@ -0,0 +1,282 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.BlockStmt;
+import sh.sidd.asmi.data.Stmt.IfStmt;
+import sh.sidd.asmi.data.Stmt.VarStmt;
+import sh.sidd.asmi.data.Stmt.WhileStmt;
+import sh.sidd.asmi.data.TokenType;
+
+/**
+ * Optimization pass which removes statements that never run or whose results are never used.
+ *
+ * <p>If statements with a constant condition are replaced by their live arm and while loops with a
+ * constant false condition are removed. Afterwards, definitions and assignments of variables which
+ * are never read by the remaining code are removed, as long as their value can not fail at runtime.
+ * Removing such a store may in turn leave other variables unread.
+ *
+ * <p>Runs after the {@link ConstantFolder} and modifies the statement lists in place.
+ */
+class DeadCodeEliminator extends StatementWalker {
+  private record Store(Stmt stmt, Expr value, List<Stmt> statements) {}
+
+  private final ExprArena arena;
+  private final List<List<Store>> storesByVariable = new ArrayList<>();
+  private final IdentityHashMap<Stmt, List<Stmt>> containers = new IdentityHashMap<>();
+  private int[] readCounts = new int[64];
+
+  DeadCodeEliminator(ExprArena arena) {
+    this.arena = arena;
+  }
+
+  /**
+   * Removes all dead statements from the given statements and the statements nested in them.
+   *
+   * @param statements The analyzed and folded statements.
+   */
+  void eliminate(List<Stmt> statements) {
+    removeDeadBranches(statements);
+    walk(statements);
+    removeUnusedStores();
+  }
+
+  @Override
+  public Void visitBlockStmt(BlockStmt stmt) {
+    removeDeadBranches(stmt.getStatements());
+    return super.visitBlockStmt(stmt);
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    addStore(stmt.getVariableSlot(), stmt, stmt.getInitializer());
+    return super.visitVarStmt(stmt);
+  }
+
+  @Override
+  public Void visitAssignStmt(AssignStmt stmt) {
+    addStore(stmt.getVariableSlot(), stmt, stmt.getValue());
+    return super.visitAssignStmt(stmt);
+  }
+
+  @Override
+  protected void visitExpression(Expr expr) {
+    countReads(expr, 1);
+  }
+
+  /**
+   * Replaces if statements with a constant condition by their live arm and removes while loops
+   * which never run.
+   *
+   * @param statements The statements of a single block.
+   */
+  private void removeDeadBranches(List<Stmt> statements) {
+    List<Stmt> live = null;
+
+    for (var i = 0; i < statements.size(); i++) {
+      final var stmt = statements.get(i);
+      Stmt replacement = stmt;
+
+      if (stmt instanceof IfStmt ifStmt) {
+        final var condition = getConstantCondition(arena, ifStmt.getCondition().getArenaIndex());
+
+        if (condition != null) {
+          replacement = condition ? ifStmt.getThenBlock() : ifStmt.getElseBlock();
+        }
+      } else if (stmt instanceof WhileStmt whileStmt
+          && Boolean.FALSE.equals(getConstantCondition(arena, whileStmt.getCondition().getArenaIndex()))) {
+        replacement = null;
+      }
+
+      if (replacement != stmt && live == null) {
+        live = new ArrayList<>(statements.subList(0, i));
+      }
+
+      if (live != null && replacement != null) {
+        live.add(replacement);
+      }
+    }
+
+    if (live != null) {
+      statements.clear();
+      statements.addAll(live);
+    }
+
+    for (final var stmt : statements) {
+      if (stmt instanceof VarStmt || stmt instanceof AssignStmt) {
+        containers.put(stmt, statements);
+      }
+    }
+  }
+
+  /**
+   * Evaluates a condition at compile time.
+   *
+   * @param arena The arena containing the condition.
+   * @param root The index of the root node of the condition.
+   * @return The value of the condition or {@code null} if it is not known at compile time.
+   */
+  static Boolean getConstantCondition(ExprArena arena, int root) {
+    if (!arena.isConstant(root)) {
+      return null;
+    }
+
+    final var value = arena.getValue(root);
+
+    if (value instanceof Boolean booleanValue) {
+      return booleanValue;
+    } else if (value instanceof Integer || value instanceof Short) {
+      return ((Number) value).intValue() != 0;
+    }
+
+    return null;
+  }
+
+  private void addStore(int slot, Stmt stmt, Expr value) {
+    while (storesByVariable.size() <= slot) {
+      storesByVariable.add(null);
+    }
+
+    if (storesByVariable.get(slot) == null) {
+      storesByVariable.set(slot, new ArrayList<>());
+    }
+
+    storesByVariable.get(slot).add(new Store(stmt, value, containers.get(stmt)));
+  }
+
+  /**
+   * Adds to the number of reads of all variables which an expression loads at runtime.
+   *
+   * @param expr The expression to count.
+   * @param delta The number to add for each read.
+   */
+  private void countReads(Expr expr, int delta) {
+    if (expr == null) {
+      return;
+    }
+
+    final var root = expr.getArenaIndex();
+
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      // Children of constant nodes are always constant, so this skips all variables which are not
+      // loaded by the code generation.
+      if (arena.getKind(i) != ExprArena.Kind.VARIABLE || arena.isConstant(i)) {
+        continue;
+      }
+
+      final var slot = arena.getVariableSlot(i);
+
+      if (slot >= readCounts.length) {
+        final var counts = new int[Math.max(slot + 1, readCounts.length * 2)];
+        System.arraycopy(readCounts, 0, counts, 0, readCounts.length);
+        readCounts = counts;
+      }
+
+      readCounts[slot] += delta;
+    }
+  }
+
+  /** Removes all stores of variables which are never read, until no further store is removed. */
+  private void removeUnusedStores() {
+    final var removed = Collections.newSetFromMap(new IdentityHashMap<Stmt, Boolean>());
+    final var modifiedStatements = Collections.newSetFromMap(
+        new IdentityHashMap<List<Stmt>, Boolean>());
+    final var pending = new BitSet();
+
+    for (var slot = 0; slot < storesByVariable.size(); slot++) {
+      if (storesByVariable.get(slot) != null && getReadCount(slot) == 0) {
+        pending.set(slot);
+      }
+    }
+
+    // Each variable is only queued once, as its read count never increases again.
+    while (!pending.isEmpty()) {
+      final var slot = pending.nextSetBit(0);
+      final var stores = storesByVariable.get(slot);
+
+      pending.clear(slot);
+      storesByVariable.set(slot, null);
+
+      if (!stores.stream().allMatch(store -> canRemove(store.value()))) {
+        continue;
+      }
+
+      for (final var store : stores) {
+        removed.add(store.stmt());
+        modifiedStatements.add(store.statements());
+        countReads(store.value(), -1);
+        findUnreadVariables(store.value(), pending);
+      }
+    }
+
+    for (final var statements : modifiedStatements) {
+      statements.removeIf(removed::contains);
+    }
+  }
+
+  /** Adds the variables read by an expression which are no longer read at all. */
+  private void findUnreadVariables(Expr expr, BitSet pending) {
+    if (expr == null) {
+      return;
+    }
+
+    final var root = expr.getArenaIndex();
+
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      if (arena.getKind(i) != ExprArena.Kind.VARIABLE || arena.isConstant(i)) {
+        continue;
+      }
+
+      final var slot = arena.getVariableSlot(i);
+
+      if (slot < storesByVariable.size() && storesByVariable.get(slot) != null
+          && getReadCount(slot) == 0) {
+        pending.set(slot);
+      }
+    }
+  }
+
+  private int getReadCount(int slot) {
+    return slot < readCounts.length ? readCounts[slot] : 0;
+  }
+
+  /**
+   * Checks whether the code for a value can be removed without changing the behaviour of the
+   * program, i.e. whether it can not fail at runtime.
+   */
+  private boolean canRemove(Expr value) {
+    if (value == null) {
+      return true;
+    }
+
+    final var root = value.getArenaIndex();
+
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      if (mayFail(arena, i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks whether computing a single node may fail at runtime, i.e. whether it is an integer
+   * division by a value which may be zero.
+   *
+   * @param arena The arena containing the node.
+   * @param index The index of the node.
+   */
+  static boolean mayFail(ExprArena arena, int index) {
+    return arena.getKind(index) == ExprArena.Kind.BINARY && !arena.isConstant(index)
+        && arena.getTokenType(index) == TokenType.SLASH
+        && !arena.getValueType(index).isFloating();
+  }
+}
@@ -0,0 +1,137 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.VarStmt;
+import sh.sidd.asmi.data.Stmt.WhileStmt;
+
+/**
+ * Optimization pass which moves computations that yield the same value in each iteration of a
+ * while loop in front of the loop.
+ *
+ * <p>A binary or unary node is invariant if none of the variables it reads are defined or assigned
+ * anywhere in the loop. The largest invariant nodes of the condition and the body are computed once
+ * before the loop and stored in fresh local variable slots, which the {@link Compiler} loads via
+ * {@link ExprArena#getValueSlot} instead. Since the moved computations also run if the loop or the
+ * branch containing them does not, nodes which may fail at runtime are never moved.
+ *
+ * <p>Outer loops are processed first, so a node which is invariant in multiple nested loops is
+ * moved in front of the outermost one.
+ */
+class LoopInvariantMover extends StatementWalker {
+  private final ExprArena arena;
+  private final VariableEnv variableEnv;
+  private final IdentityHashMap<WhileStmt, List<Integer>> invariants = new IdentityHashMap<>();
+
+  LoopInvariantMover(ExprArena arena, VariableEnv variableEnv) {
+    this.arena = arena;
+    this.variableEnv = variableEnv;
+  }
+
+  /**
+   * Returns the nodes which have to be computed in front of a loop.
+   *
+   * @param stmt The loop.
+   * @return The indices of the nodes, each to be stored into its value slot.
+   */
+  List<Integer> getInvariants(WhileStmt stmt) {
+    return invariants.getOrDefault(stmt, List.of());
+  }
+
+  @Override
+  protected void visitExpression(Expr expr) {}
+
+  @Override
+  public Void visitWhileStmt(WhileStmt stmt) {
+    final var modifiedVariables = new BitSet();
+    final var expressions = new ArrayList<Expr>();
+
+    expressions.add(stmt.getCondition());
+
+    new StatementWalker() {
+      @Override
+      protected void visitExpression(Expr expr) {
+        expressions.add(expr);
+      }
+
+      @Override
+      public Void visitVarStmt(VarStmt varStmt) {
+        modifiedVariables.set(varStmt.getVariableSlot());
+        return super.visitVarStmt(varStmt);
+      }
+
+      @Override
+      public Void visitAssignStmt(AssignStmt assignStmt) {
+        modifiedVariables.set(assignStmt.getVariableSlot());
+        return super.visitAssignStmt(assignStmt);
+      }
+    }.walk(List.of(stmt.getBlock()));
+
+    final var hoisted = new ArrayList<Integer>();
+
+    for (final var expr : expressions) {
+      if (expr != null) {
+        findInvariants(expr.getArenaIndex(), modifiedVariables, hoisted);
+      }
+    }
+
+    if (!hoisted.isEmpty()) {
+      invariants.put(stmt, hoisted);
+    }
+
+    return super.visitWhileStmt(stmt);
+  }
+
+  /**
+   * Finds the largest invariant nodes of an expression and assigns a value slot to each.
+   *
+   * @param root The index of the root node.
+   * @param modifiedVariables The slots of all variables which are modified in the loop.
+   * @param hoisted The list to add the invariant nodes to.
+   */
+  private void findInvariants(int root, BitSet modifiedVariables, List<Integer> hoisted) {
+    final var first = arena.getFirst(root);
+    final var invariant = new boolean[root - first + 1];
+
+    // Children precede their parents, so a forward loop visits all children first.
+    for (var i = first; i <= root; i++) {
+      final var left = arena.getLeft(i);
+
+      invariant[i - first] = arena.isConstant(i) || arena.getValueSlot(i) != ExprArena.NONE
+          || switch (arena.getKind(i)) {
+            case LITERAL -> true;
+            case VARIABLE -> !modifiedVariables.get(arena.getVariableSlot(i));
+            case GROUPING, UNARY -> invariant[left - first];
+            case BINARY -> invariant[left - first] && invariant[arena.getRight(i) - first]
+                && !DeadCodeEliminator.mayFail(arena, i);
+          };
+    }
+
+    // The covered nodes are part of a node which is moved already, as parents follow children.
+    final var covered = new boolean[invariant.length];
+
+    for (var i = root; i >= first; i--) {
+      final var parent = arena.getParent(i);
+
+      if (i != root && (covered[parent - first] || arena.getValueSlot(parent) != ExprArena.NONE)) {
+        covered[i - first] = true;
+        continue;
+      }
+
+      final var kind = arena.getKind(i);
+
+      if (invariant[i - first] && !arena.isConstant(i) && arena.getValueSlot(i) == ExprArena.NONE
+          && (kind == ExprArena.Kind.BINARY || kind == ExprArena.Kind.UNARY)
+          && arena.getUsedType(i).isNumeric()) {
+        arena.setValueSlot(i, variableEnv.defineTemporary(arena.getUsedType(i)));
+        hoisted.add(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.VarStmt;
+import sh.sidd.asmi.data.Stmt.WhileStmt;
+
+/**
+ * Assigns the final local variable slots to all variables and temporary values, so values which
+ * are never live at the same time share slots.
+ *
+ * <p>Until this pass runs, each variable and temporary value occupies its own slots. All accesses
+ * are numbered in the order of the code generation, so each value is live from its first to its
+ * last access. Values which are live before a loop and accessed in it stay live for the whole loop,
+ * as later iterations may still read them. The live ranges are then assigned to slots by a linear
+ * scan, which only reuses slots of the same size, as `long` and `double` values occupy two.
+ *
+ * <p>Runs after all other passes, as they may add temporary values.
+ */
+class SlotAllocator extends StatementWalker {
+  private final ExprArena arena;
+  private final VariableEnv variableEnv;
+  private final LoopInvariantMover loopInvariantMover;
+  private final int[] starts;
+  private final int[] ends;
+  private final List<int[]> loops = new ArrayList<>();
+  private final List<VarStmt> varStmts = new ArrayList<>();
+  private final List<AssignStmt> assignStmts = new ArrayList<>();
+  private int position;
+
+  SlotAllocator(ExprArena arena, VariableEnv variableEnv, LoopInvariantMover loopInvariantMover) {
+    this.arena = arena;
+    this.variableEnv = variableEnv;
+    this.loopInvariantMover = loopInvariantMover;
+
+    final var slotCount = variableEnv.getLocalVariableSize();
+
+    starts = new int[slotCount];
+    ends = new int[slotCount];
+    Arrays.fill(starts, -1);
+  }
+
+  /**
+   * Assigns the final slots for all variables and temporary values of the given statements.
+   *
+   * @param statements The optimized statements.
+   */
+  void allocate(List<Stmt> statements) {
+    walk(statements);
+    extendOverLoops();
+
+    final var slots = assignSlots();
+
+    for (final var stmt : varStmts) {
+      stmt.setVariableSlot(slots[stmt.getVariableSlot()]);
+    }
+
+    for (final var stmt : assignStmts) {
+      stmt.setVariableSlot(slots[stmt.getVariableSlot()]);
+    }
+
+    for (var i = 0; i < arena.size(); i++) {
+      if (arena.getVariableSlot(i) != ExprArena.NONE) {
+        arena.setVariableSlot(i, slots[arena.getVariableSlot(i)]);
+      }
+
+      if (arena.getValueSlot(i) != ExprArena.NONE) {
+        arena.setValueSlot(i, slots[arena.getValueSlot(i)]);
+      }
+
+      if (arena.getStoreSlot(i) != ExprArena.NONE) {
+        arena.setStoreSlot(i, slots[arena.getStoreSlot(i)]);
+      }
+    }
+  }
+
+  @Override
+  protected void visitExpression(Expr expr) {
+    if (expr != null) {
+      position++;
+      accessNodes(expr.getArenaIndex());
+    }
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    super.visitVarStmt(stmt);
+    position++;
+    access(stmt.getVariableSlot());
+    varStmts.add(stmt);
+    return null;
+  }
+
+  @Override
+  public Void visitAssignStmt(AssignStmt stmt) {
+    super.visitAssignStmt(stmt);
+    position++;
+    access(stmt.getVariableSlot());
+    assignStmts.add(stmt);
+    return null;
+  }
+
+  @Override
+  public Void visitWhileStmt(WhileStmt stmt) {
+    // The invariants are computed in front of the loop.
+    position++;
+
+    for (final var invariant : loopInvariantMover.getInvariants(stmt)) {
+      accessNodes(invariant);
+    }
+
+    final var loopStart = position + 1;
+
+    // The condition is written both as the guard and after the body.
+    visitExpression(stmt.getCondition());
+
+    traversal.push(
+        () -> stmt.getBlock().accept(this),
+        () -> {
+          visitExpression(stmt.getCondition());
+          loops.add(new int[] {loopStart, position});
+        });
+
+    return null;
+  }
+
+  /** Accesses all variables and slots which the nodes of an expression may load or store. */
+  private void accessNodes(int root) {
+    for (var i = arena.getFirst(root); i <= root; i++) {
+      if (arena.getKind(i) == ExprArena.Kind.VARIABLE && !arena.isConstant(i)) {
+        access(arena.getVariableSlot(i));
+      }
+
+      if (arena.getValueSlot(i) != ExprArena.NONE) {
+        access(arena.getValueSlot(i));
+      }
+
+      if (arena.getStoreSlot(i) != ExprArena.NONE) {
+        access(arena.getStoreSlot(i));
+      }
+    }
+  }
+
+  private void access(int slot) {
+    if (starts[slot] < 0) {
+      starts[slot] = position;
+    }
+
+    ends[slot] = position;
+  }
+
+  /** Keeps values live for whole loops if they are live across the start or end of the loop. */
+  private void extendOverLoops() {
+    // Inner loops are shorter, so extending over them first may extend over outer loops afterwards.
+    loops.sort(Comparator.comparingInt(loop -> loop[1] - loop[0]));
+
+    for (final var loop : loops) {
+      for (var slot = 0; slot < starts.length; slot++) {
+        if (starts[slot] < 0 || ends[slot] < loop[0] || starts[slot] > loop[1]) {
+          continue;
+        }
+
+        if (starts[slot] < loop[0] || ends[slot] > loop[1]) {
+          starts[slot] = Math.min(starts[slot], loop[0]);
+          ends[slot] = Math.max(ends[slot], loop[1]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Assigns slots to all live ranges by a linear scan.
+   *
+   * @return The final slot for each current slot, which is only valid for accessed slots.
+   */
+  private int[] assignSlots() {
+    final var slots = new int[starts.length];
+    final var order = new ArrayList<Integer>();
+
+    for (var slot = 0; slot < starts.length; slot++) {
+      if (starts[slot] >= 0) {
+        order.add(slot);
+      }
+    }
+
+    order.sort(Comparator.comparingInt(slot -> starts[slot]));
+
+    final var active = new PriorityQueue<Integer>(Comparator.comparingInt(slot -> ends[slot]));
+    final var freeSlots = List.of(new ArrayDeque<Integer>(), new ArrayDeque<Integer>());
+
+    // Slot 0 holds `this`.
+    var nextSlot = 1;
+
+    for (final var slot : order) {
+      while (!active.isEmpty() && ends[active.peek()] < starts[slot]) {
+        final var expired = active.poll();
+        freeSlots.get(getSlotSize(expired) - 1).push(slots[expired]);
+      }
+
+      final var size = getSlotSize(slot);
+      final var free = freeSlots.get(size - 1);
+
+      if (free.isEmpty()) {
+        slots[slot] = nextSlot;
+        nextSlot += size;
+      } else {
+        slots[slot] = free.pop();
+      }
+
+      active.add(slot);
+    }
+
+    return slots;
+  }
+
+  private int getSlotSize(int slot) {
+    return variableEnv.getSlotType(slot).getSlotSize();
+  }
+}
@@ -0,0 +1,98 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.List;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.*;
+
+/**
+ * Base class for passes which visit all statements and their expressions in source order.
+ *
+ * <p>Nested statements are traversed via a {@link TraversalStack}. Subclasses override the visit
+ * methods of the statements they are interested in and should call the super method to keep
+ * visiting nested statements.
+ */
+abstract class StatementWalker implements Stmt.Visitor<Void> {
+  protected final TraversalStack traversal = new TraversalStack();
+
+  /**
+   * Visits all given statements and all statements nested in them.
+   *
+   * @param statements The statements to visit.
+   */
+  public void walk(List<Stmt> statements) {
+    for (final var stmt : statements) {
+      traversal.visit(stmt, this);
+    }
+  }
+
+  /**
+   * Visits a single expression of a statement.
+   *
+   * @param expr The expression to visit.
+   */
+  protected abstract void visitExpression(Expr expr);
+
+  @Override
+  public Void visitExpressionStmt(ExpressionStmt stmt) {
+    visitExpression(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitPrintStmt(PrintStmt stmt) {
+    visitExpression(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitAssertStmt(AssertStmt stmt) {
+    visitExpression(stmt.getExpression());
+    return null;
+  }
+
+  @Override
+  public Void visitVarStmt(VarStmt stmt) {
+    visitExpression(stmt.getInitializer());
+    return null;
+  }
+
+  @Override
+  public Void visitAssignStmt(AssignStmt stmt) {
+    visitExpression(stmt.getValue());
+    return null;
+  }
+
+  @Override
+  public Void visitBlockStmt(BlockStmt stmt) {
+    traversal.pushAll(stmt.getStatements(), this);
+    return null;
+  }
+
+  @Override
+  public Void visitDefStmt(DefStmt stmt) {
+    traversal.push(() -> stmt.getBlock().accept(this));
+    return null;
+  }
+
+  @Override
+  public Void visitIfStmt(IfStmt stmt) {
+    visitExpression(stmt.getCondition());
+
+    if (stmt.getElseBlock() != null) {
+      traversal.push(
+          () -> stmt.getThenBlock().accept(this), () -> stmt.getElseBlock().accept(this));
+    } else {
+      traversal.push(() -> stmt.getThenBlock().accept(this));
+    }
+
+    return null;
+  }
+
+  @Override
+  public Void visitWhileStmt(WhileStmt stmt) {
+    visitExpression(stmt.getCondition());
+    traversal.push(() -> stmt.getBlock().accept(this));
+    return null;
+  }
+}
@@ -0,0 +1,101 @@
+package sh.sidd.asmi.compiler;
+
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.ValueType;
+
+/**
+ * Finds cheaper replacements for binary operations with a single constant operand.
+ *
+ * <p>Integer multiplications by powers of two become left shifts and floating point
+ * multiplications by two become additions of the operand to itself. Operations with their identity
+ * element, e.g. {@code x * 1} or {@code x - 0}, are removed entirely. All replacements produce the
+ * exact same result as the original operation for every operand of the given type, so e.g. integer
+ * divisions by powers of two, which round differently than shifts for negative numbers, and
+ * {@code x + 0.0}, which turns {@code -0.0} into {@code 0.0}, are kept.
+ */
+final class StrengthReducer {
+  /** The kind of replacement for an operation. */
+  enum Kind {
+    /** The operation is dropped and only the operand remains. */
+    IDENTITY,
+    /** The operand is shifted to the left by {@link Reduction#bits()}. */
+    SHIFT_LEFT,
+    /** The operand is added to itself. */
+    ADD_SELF
+  }
+
+  /**
+   * A replacement for an operation.
+   *
+   * @param kind The kind of the replacement.
+   * @param operand The index of the operand which is still written.
+   * @param bits The number of bits to shift by.
+   */
+  record Reduction(Kind kind, int operand, int bits) {}
+
+  private StrengthReducer() {}
+
+  /**
+   * Finds a replacement for a binary node.
+   *
+   * @param arena The arena containing the node.
+   * @param index The index of the binary node.
+   * @param operandType The type which both operands are cast to.
+   * @return The replacement or {@code null} if the operation has to be written as is.
+   */
+  static Reduction find(ExprArena arena, int index, ValueType operandType) {
+    final var left = arena.getLeft(index);
+    final var right = arena.getRight(index);
+
+    if (!operandType.isNumeric() || arena.isConstant(left) == arena.isConstant(right)) {
+      return null;
+    }
+
+    final var constantOnRight = arena.isConstant(right);
+    final var constant = constantOnRight ? right : left;
+    final var operand = constantOnRight ? left : right;
+
+    if (!(arena.getValue(constant) instanceof Number)) {
+      return null;
+    }
+
+    final var value = (Number) ConstantFolder.convert(arena.getValue(constant), operandType);
+
+    return switch (arena.getTokenType(index)) {
+      case STAR -> findMultiplication(operand, value, operandType);
+      case SLASH -> constantOnRight && isOne(value) ? new Reduction(Kind.IDENTITY, operand, 0) : null;
+      case PLUS -> !operandType.isFloating() && isZero(value)
+          ? new Reduction(Kind.IDENTITY, operand, 0) : null;
+      case MINUS -> constantOnRight && isZero(value)
+          ? new Reduction(Kind.IDENTITY, operand, 0) : null;
+      default -> null;
+    };
+  }
+
+  private static Reduction findMultiplication(int operand, Number value, ValueType operandType) {
+    if (isOne(value)) {
+      return new Reduction(Kind.IDENTITY, operand, 0);
+    }
+
+    if (operandType.isFloating()) {
+      return value.doubleValue() == 2 ? new Reduction(Kind.ADD_SELF, operand, 0) : null;
+    }
+
+    final var factor = value.longValue();
+
+    if (factor > 0 && (factor & (factor - 1)) == 0) {
+      return new Reduction(Kind.SHIFT_LEFT, operand, Long.numberOfTrailingZeros(factor));
+    }
+
+    return null;
+  }
+
+  private static boolean isOne(Number value) {
+    return value.doubleValue() == 1;
+  }
+
+  /** Checks for a zero without sign, as subtracting {@code -0.0} turns {@code -0.0} into 0. */
+  private static boolean isZero(Number value) {
+    return Double.doubleToRawLongBits(value.doubleValue()) == 0;
+  }
+}
@@ -0,0 +1,53 @@
+package sh.sidd.asmi.compiler;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import sh.sidd.asmi.data.Stmt;
+
+/**
+ * Explicit stack of pending steps for traversing statements.
+ *
+ * <p>Visitors push the steps for nested statements instead of visiting them directly, so the
+ * nesting depth of statements is only limited by the heap.
+ */
+class TraversalStack {
+  private final ArrayDeque<Runnable> steps = new ArrayDeque<>();
+
+  /**
+   * Visits a statement and all statements nested in it.
+   *
+   * @param stmt The statement to visit.
+   * @param visitor The visitor to use.
+   */
+  void visit(Stmt stmt, Stmt.Visitor<?> visitor) {
+    steps.push(() -> stmt.accept(visitor));
+
+    while (!steps.isEmpty()) {
+      steps.pop().run();
+    }
+  }
+
+  /**
+   * Schedules steps which run in the given order, before all previously scheduled steps.
+   *
+   * @param next The steps to schedule.
+   */
+  void push(Runnable... next) {
+    for (var i = next.length - 1; i >= 0; i--) {
+      steps.push(next[i]);
+    }
+  }
+
+  /**
+   * Schedules visiting the given statements in order, before all previously scheduled steps.
+   *
+   * @param statements The statements to visit.
+   * @param visitor The visitor to use.
+   */
+  void pushAll(List<Stmt> statements, Stmt.Visitor<?> visitor) {
+    for (var i = statements.size() - 1; i >= 0; i--) {
+      final var stmt = statements.get(i);
+      steps.push(() -> stmt.accept(visitor));
+    }
+  }
+}
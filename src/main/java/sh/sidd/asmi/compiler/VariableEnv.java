@@ -1,25 +1,62 @@
 package sh.sidd.asmi.compiler;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import sh.sidd.asmi.data.Token;
 import sh.sidd.asmi.data.ValueType;
 
-/** Stores metadata to currently accessible variables. */
+/**
+ * Stores metadata to currently accessible variables.
+ *
+ * <p>Variables are identified by the {@link sh.sidd.asmi.data.SymbolTable} id of their name token,
+ * so lookups are plain array accesses. Each block opens a new scope, whose variables are dropped
+ * once it is exited again and may shadow variables of enclosing scopes.
+ *
+ * <p>Each defined variable reserves its own local variable slot, which identifies it in all later
+ * passes. The final slots are assigned by the {@link SlotAllocator}.
+ */
 public class VariableEnv {
 
-  private record VariableEntry(ValueType valueType, int index) {}
+  private record VariableEntry(ValueType valueType, int index, int depth) {}
 
-  private final VariableEnv enclosingEnv;
-  private final Map<String, VariableEntry> variables;
-  private int currentLocalVariableSize;
+  private VariableEntry[] variables;
+
+  /** The symbols defined in all open scopes and the entries they shadow, in definition order. */
+  private int[] definedSymbols = new int[16];
+  private VariableEntry[] shadowedEntries = new VariableEntry[16];
+  private int definedCount;
+
+  /** The number of defined symbols at the start of each open scope. */
+  private int[] scopeStarts = new int[8];
+  private int depth;
+
+  /** Slot 0 holds `this`, as all code is compiled into an instance method. */
+  private int currentLocalVariableSize = 1;
+
+  /** The type of the value held by each reserved slot. */
+  private ValueType[] slotTypes = new ValueType[16];
 
   public VariableEnv() {
-    this(null);
+    this.variables = new VariableEntry[16];
   }
 
-  public VariableEnv(VariableEnv enclosingEnv) {
-    this.enclosingEnv = enclosingEnv;
-    this.variables = new HashMap<>();
+  /** Opens a new scope for the variables of a block. */
+  public void enterScope() {
+    if (depth == scopeStarts.length) {
+      scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+    }
+
+    scopeStarts[depth++] = definedCount;
+  }
+
+  /** Closes the innermost scope and restores all variables its variables shadowed. */
+  public void exitScope() {
+    final var scopeStart = scopeStarts[--depth];
+
+    while (definedCount > scopeStart) {
+      definedCount--;
+      variables[definedSymbols[definedCount]] = shadowedEntries[definedCount];
+      shadowedEntries[definedCount] = null;
+    }
   }
 
   /**
@@ -28,12 +65,8 @@ public class VariableEnv {
    * @param identifier The identifier to look up.
    * @return The type of the identifier.
    */
-  public ValueType getVariableType(String identifier) throws VariableEnvException {
-    if (!variables.containsKey(identifier)) {
-      throw new VariableEnvException("Unknown variable: " + identifier);
-    }
-
-    return variables.get(identifier).valueType();
+  public ValueType getVariableType(Token identifier) throws VariableEnvException {
+    return getEntry(identifier).valueType();
   }
 
   /**
@@ -42,29 +75,136 @@ public class VariableEnv {
    * @param identifier The identifier to look up.
    * @return The index of the identifier.
    */
-  public int getVariableIndex(String identifier) throws VariableEnvException {
-    if (variables.containsKey(identifier)) {
-      return variables.get(identifier).index();
-    }
+  public int getVariableIndex(Token identifier) throws VariableEnvException {
+    return getEntry(identifier).index();
+  }
 
-    if (enclosingEnv != null) {
-      return enclosingEnv.getVariableIndex(identifier);
-    }
+  /**
+   * Returns the type of a variable by the id of its identifier, so no token is required.
+   *
+   * @param symbol The id of the identifier.
+   * @return The type or {@code null} if the variable is not defined in any open scope.
+   */
+  public ValueType findVariableType(int symbol) {
+    final var entry = findEntry(symbol);
 
-    throw new VariableEnvException("Unknown variable: " + identifier);
+    return entry != null ? entry.valueType() : null;
   }
 
   /**
-   * Defines a new variable and sets its type.
+   * Returns the index of a variable by the id of its identifier, so no token is required.
+   *
+   * @param symbol The id of the identifier.
+   * @return The index or {@code -1} if the variable is not defined in any open scope.
+   */
+  public int findVariableIndex(int symbol) {
+    final var entry = findEntry(symbol);
+
+    return entry != null ? entry.index() : -1;
+  }
+
+  /**
+   * Defines a new variable in the innermost scope and sets its type.
    *
    * @param identifier The identifier to set.
    * @param valueType The type to set.
+   * @return The index of the reserved slot.
    */
-  public void defineVariable(String identifier, ValueType valueType) throws VariableEnvException {
-    if (variables.containsKey(identifier)) {
+  public int defineVariable(Token identifier, ValueType valueType) throws VariableEnvException {
+    final var symbol = identifier.symbol();
+
+    if (symbol < 0) {
+      throw new VariableEnvException("Invalid identifier: " + identifier.lexeme());
+    }
+
+    final var shadowed = findEntry(symbol);
+
+    if (shadowed != null && shadowed.depth() == depth) {
       throw new VariableEnvException("Identifier already exists.");
     }
 
-    variables.put(identifier, new VariableEntry(valueType, currentLocalVariableSize++));
+    if (symbol >= variables.length) {
+      variables = Arrays.copyOf(variables, Math.max(symbol + 1, variables.length * 2));
+    }
+
+    if (definedCount == definedSymbols.length) {
+      definedSymbols = Arrays.copyOf(definedSymbols, definedCount * 2);
+      shadowedEntries = Arrays.copyOf(shadowedEntries, definedCount * 2);
+    }
+
+    definedSymbols[definedCount] = symbol;
+    shadowedEntries[definedCount] = shadowed;
+    definedCount++;
+
+    final var index = defineTemporary(valueType);
+
+    variables[symbol] = new VariableEntry(valueType, index, depth);
+
+    return index;
+  }
+
+  /**
+   * Reserves local variable slots for a value which is not bound to any identifier.
+   *
+   * @param valueType The type of the value.
+   * @return The index of the reserved slot.
+   */
+  public int defineTemporary(ValueType valueType) {
+    final var index = currentLocalVariableSize;
+    currentLocalVariableSize += valueType.getSlotSize();
+
+    if (currentLocalVariableSize > slotTypes.length) {
+      slotTypes =
+          Arrays.copyOf(slotTypes, Math.max(currentLocalVariableSize, slotTypes.length * 2));
+    }
+
+    slotTypes[index] = valueType;
+
+    return index;
+  }
+
+  /**
+   * Returns the type of the value held by a reserved slot.
+   *
+   * @param index The index of the slot, as returned when reserving it.
+   * @return The type of the value.
+   */
+  public ValueType getSlotType(int index) {
+    return slotTypes[index];
+  }
+
+  /** Returns the number of local variable slots reserved so far, including `this`. */
+  public int getLocalVariableSize() {
+    return currentLocalVariableSize;
+  }
+
+  /**
+   * Returns the entry of the given identifier in the innermost scope defining it.
+   *
+   * @param identifier The identifier to look up.
+   * @return The entry.
+   */
+  private VariableEntry getEntry(Token identifier) throws VariableEnvException {
+    final var entry = findEntry(identifier.symbol());
+
+    if (entry == null) {
+      throw new VariableEnvException("Unknown variable: " + identifier.lexeme());
+    }
+
+    return entry;
+  }
+
+  /**
+   * Returns the visible entry of the given symbol.
+   *
+   * @param symbol The id of the identifier.
+   * @return The entry or {@code null} if the symbol is not defined in any open scope.
+   */
+  private VariableEntry findEntry(int symbol) {
+    if (symbol < 0 || symbol >= variables.length) {
+      return null;
+    }
+
+    return variables[symbol];
   }
 }
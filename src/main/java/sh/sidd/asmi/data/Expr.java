@@ -4,31 +4,16 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-/** Base interface for all expressions. */
+/**
+ * Base interface for all expressions.
+ *
+ * <p>Expressions are flattened into an {@link ExprArena} for compilation, which also holds the
+ * results of the analysis passes. The parser may also add expressions to an arena directly, in
+ * which case only an {@link ArenaExpr} handle is created for each root.
+ */
 public abstract class Expr {
-  @Getter @Setter private ValueType valueType;
-  @Getter @Setter private int lineStart;
-  @Getter @Setter private int lineEnd;
-
-  /** Visitor pattern to visit each type of expression. */
-  public interface Visitor<R> {
-    R visitBinaryExpr(BinaryExpr expr);
-
-    R visitGroupingExpr(GroupingExpr expr);
-
-    R visitLiteralExpr(LiteralExpr expr);
-
-    R visitUnaryExpr(UnaryExpr expr);
-
-    R visitVariableExpr(VariableExpr expr);
-  }
-
-  /**
-   * Accepts a visitor and visits this expression.
-   *
-   * @param visitor The visitor to use.
-   */
-  public abstract <R> R accept(Visitor<R> visitor);
+  /** The index of this expression in the last {@link ExprArena} it was added to. */
+  @Getter @Setter private int arenaIndex = ExprArena.NONE;
 
   @ToString
   public static class BinaryExpr extends Expr {
@@ -41,11 +26,6 @@ public abstract class Expr {
       this.operator = operator;
       this.right = right;
     }
-
-    @Override
-    public <R> R accept(Visitor<R> visitor) {
-      return visitor.visitBinaryExpr(this);
-    }
   }
 
   @ToString
@@ -55,11 +35,6 @@ public abstract class Expr {
     public GroupingExpr(Expr expr) {
       this.expr = expr;
     }
-
-    @Override
-    public <R> R accept(Visitor<R> visitor) {
-      return visitor.visitGroupingExpr(this);
-    }
   }
 
   @ToString
@@ -71,11 +46,6 @@ public abstract class Expr {
       this.token = token;
       this.value = value;
     }
-
-    @Override
-    public <R> R accept(Visitor<R> visitor) {
-      return visitor.visitLiteralExpr(this);
-    }
   }
 
   @ToString
@@ -87,11 +57,6 @@ public abstract class Expr {
       this.operator = operator;
       this.right = right;
     }
-
-    @Override
-    public <R> R accept(Visitor<R> visitor) {
-      return visitor.visitUnaryExpr(this);
-    }
   }
 
   @ToString
@@ -101,10 +66,16 @@ public abstract class Expr {
     public VariableExpr(Token name) {
       this.name = name;
     }
+  }
+
+  /** Handle to an expression which was added to an {@link ExprArena} directly. */
+  @ToString
+  public static class ArenaExpr extends Expr {
+    @Getter private final ExprArena arena;
 
-    @Override
-    public <R> R accept(Visitor<R> visitor) {
-      return visitor.visitVariableExpr(this);
+    public ArenaExpr(ExprArena arena, int root) {
+      this.arena = arena;
+      setArenaIndex(root);
     }
   }
 }
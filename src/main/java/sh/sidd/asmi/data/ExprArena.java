@@ -0,0 +1,607 @@
+package sh.sidd.asmi.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import sh.sidd.asmi.data.Expr.ArenaExpr;
+import sh.sidd.asmi.data.Expr.BinaryExpr;
+import sh.sidd.asmi.data.Expr.GroupingExpr;
+import sh.sidd.asmi.data.Expr.LiteralExpr;
+import sh.sidd.asmi.data.Expr.UnaryExpr;
+import sh.sidd.asmi.data.Expr.VariableExpr;
+
+/**
+ * Flat storage for expressions.
+ *
+ * <p>Expressions are stored as parallel primitive arrays indexed by node. Nodes are added in
+ * post-order, so the children of a node always precede it and each expression occupies a
+ * contiguous range which ends at its root. Passes over an expression are plain loops over that
+ * range instead of recursive visitors.
+ *
+ * <p>The only child of {@link Kind#GROUPING} and {@link Kind#UNARY} nodes is stored as their left
+ * child.
+ *
+ * <p>Nodes are either added by the parser via the {@code add*} methods, which must be called in
+ * post-order, or flattened from an {@link Expr} tree via {@link #add(Expr)}.
+ *
+ * <p>The operator, name or literal token of each node is stored as an index into a token table,
+ * which keeps the type, position and line of each token in primitive arrays. Likewise, constant
+ * nodes store an index into a table of raw value bits. Neither {@link Token} objects nor boxed
+ * values are kept per node; they are only created when requested, e.g. for errors.
+ */
+public class ExprArena {
+  /** Index of a missing child or parent. */
+  public static final int NONE = -1;
+
+  private static final Kind[] KINDS = Kind.values();
+  private static final ValueType[] VALUE_TYPES = ValueType.values();
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+  private static final ValueKind[] VALUE_KINDS = ValueKind.values();
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The kind of a single node. */
+  public enum Kind {
+    BINARY,
+    GROUPING,
+    LITERAL,
+    UNARY,
+    VARIABLE
+  }
+
+  /** The kind of a stored constant, which determines how its bits are decoded. */
+  private enum ValueKind {
+    NULL,
+    BOOLEAN,
+    SHORT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    OBJECT
+  }
+
+  private byte[] kinds = new byte[INITIAL_CAPACITY];
+  private int[] lefts = new int[INITIAL_CAPACITY];
+  private int[] rights = new int[INITIAL_CAPACITY];
+  private int[] parents = new int[INITIAL_CAPACITY];
+  private int[] tokens = new int[INITIAL_CAPACITY];
+  private int[] constants = new int[INITIAL_CAPACITY];
+  private byte[] valueTypes = new byte[INITIAL_CAPACITY];
+  private int[] lineStarts = new int[INITIAL_CAPACITY];
+  private int[] lineEnds = new int[INITIAL_CAPACITY];
+  private int[] valueSlots = new int[INITIAL_CAPACITY];
+  private int[] storeSlots = new int[INITIAL_CAPACITY];
+  private int[] variableSlots = new int[INITIAL_CAPACITY];
+  private int size;
+
+  private byte[] tokenTypes = new byte[INITIAL_CAPACITY];
+  private int[] tokenStarts = new int[INITIAL_CAPACITY];
+  private int[] tokenLengths = new int[INITIAL_CAPACITY];
+  private int[] tokenLines = new int[INITIAL_CAPACITY];
+  private int[] tokenSymbols = new int[INITIAL_CAPACITY];
+  private int tokenCount;
+
+  /**
+   * The sources which tokens refer to and the first token of each, usually only the compiled file.
+   * Consecutive tokens of the same source share a single entry.
+   */
+  private final List<CharSequence> sources = new ArrayList<>();
+  private int[] sourceStarts = new int[1];
+
+  private byte[] constantKinds = new byte[INITIAL_CAPACITY];
+  private long[] constantBits = new long[INITIAL_CAPACITY];
+  private int constantCount;
+
+  /** Constant values which are not stored as bits, i.e. strings. */
+  private final List<Object> objects = new ArrayList<>();
+
+  /**
+   * Flattens an expression into the arena and stores the index of each node in its
+   * {@link Expr#getArenaIndex() arena index}.
+   *
+   * <p>An {@link ArenaExpr} of this arena is already stored and only its index is returned.
+   *
+   * @param root The expression to add.
+   * @return The index of the root node.
+   */
+  public int add(Expr root) {
+    if (root instanceof ArenaExpr arenaExpr) {
+      if (arenaExpr.getArena() != this) {
+        throw new IllegalArgumentException("Expression belongs to a different arena: " + root);
+      }
+
+      return arenaExpr.getArenaIndex();
+    }
+
+    // Collect the nodes in reverse post-order first, so the tree is never walked recursively.
+    final var pending = new ArrayList<Expr>();
+    final var order = new ArrayList<Expr>();
+
+    pending.add(root);
+
+    while (!pending.isEmpty()) {
+      final var expr = pending.remove(pending.size() - 1);
+      order.add(expr);
+
+      if (expr instanceof BinaryExpr binaryExpr) {
+        pending.add(binaryExpr.getLeft());
+        pending.add(binaryExpr.getRight());
+      } else if (expr instanceof GroupingExpr groupingExpr) {
+        pending.add(groupingExpr.getExpr());
+      } else if (expr instanceof UnaryExpr unaryExpr) {
+        pending.add(unaryExpr.getRight());
+      }
+    }
+
+    final var results = new int[order.size()];
+    var resultCount = 0;
+
+    for (var i = order.size() - 1; i >= 0; i--) {
+      final var expr = order.get(i);
+      final int index;
+
+      if (expr instanceof BinaryExpr binaryExpr) {
+        final var right = results[--resultCount];
+        final var left = results[--resultCount];
+        index = addBinary(left, addToken(binaryExpr.getOperator()), right);
+      } else if (expr instanceof GroupingExpr) {
+        index = addGrouping(results[--resultCount]);
+      } else if (expr instanceof UnaryExpr unaryExpr) {
+        index = addUnary(addToken(unaryExpr.getOperator()), results[--resultCount]);
+      } else if (expr instanceof LiteralExpr literalExpr) {
+        index = addLiteral(addToken(literalExpr.getToken()), literalExpr.getValue());
+      } else if (expr instanceof VariableExpr variableExpr) {
+        index = addVariable(addToken(variableExpr.getName()));
+      } else {
+        throw new IllegalArgumentException("Unknown expression: " + expr);
+      }
+
+      expr.setArenaIndex(index);
+      results[resultCount++] = index;
+    }
+
+    return results[0];
+  }
+
+  /**
+   * Adds a token to the token table without creating a {@link Token}.
+   *
+   * @param type The type of the token.
+   * @param source The source which the positions refer to.
+   * @param start The start position of the token in its source.
+   * @param length The length of the token.
+   * @param line The 0-indexed line of the token.
+   * @param symbol The {@link SymbolTable} id of an identifier or {@link Token#NO_SYMBOL}.
+   * @return The index of the token, to be passed to the {@code add*} methods.
+   */
+  public int addToken(TokenType type, CharSequence source, int start, int length, int line,
+                      int symbol) {
+    if (tokenCount == tokenTypes.length) {
+      final var capacity = tokenCount * 2;
+
+      tokenTypes = Arrays.copyOf(tokenTypes, capacity);
+      tokenStarts = Arrays.copyOf(tokenStarts, capacity);
+      tokenLengths = Arrays.copyOf(tokenLengths, capacity);
+      tokenLines = Arrays.copyOf(tokenLines, capacity);
+      tokenSymbols = Arrays.copyOf(tokenSymbols, capacity);
+    }
+
+    if (sources.isEmpty() || sources.get(sources.size() - 1) != source) {
+      if (sources.size() == sourceStarts.length) {
+        sourceStarts = Arrays.copyOf(sourceStarts, sources.size() * 2);
+      }
+
+      sourceStarts[sources.size()] = tokenCount;
+      sources.add(source);
+    }
+
+    final var token = tokenCount++;
+
+    tokenTypes[token] = (byte) type.ordinal();
+    tokenStarts[token] = start;
+    tokenLengths[token] = length;
+    tokenLines[token] = line;
+    tokenSymbols[token] = symbol;
+
+    return token;
+  }
+
+  /** Adds an existing token to the token table. */
+  public int addToken(Token token) {
+    return addToken(token.tokenType(), token.source(), token.start(), token.end() - token.start(),
+        token.line(), token.symbol());
+  }
+
+  /** Adds a binary node whose operands were added before. */
+  public int addBinary(int left, int operator, int right) {
+    return addNode(Kind.BINARY, left, right, operator, null);
+  }
+
+  /** Adds a grouping node whose expression was added before. */
+  public int addGrouping(int expr) {
+    return addNode(Kind.GROUPING, expr, NONE, NONE, null);
+  }
+
+  /** Adds a unary node whose operand was added before. */
+  public int addUnary(int operator, int right) {
+    return addNode(Kind.UNARY, right, NONE, operator, null);
+  }
+
+  /** Adds a literal node. */
+  public int addLiteral(int token, Object value) {
+    return addNode(Kind.LITERAL, NONE, NONE, token, value);
+  }
+
+  /** Adds a variable node. */
+  public int addVariable(int name) {
+    return addNode(Kind.VARIABLE, NONE, NONE, name, null);
+  }
+
+  /** Removes all nodes and tokens from the arena. */
+  public void clear() {
+    size = 0;
+    tokenCount = 0;
+    constantCount = 0;
+    sources.clear();
+    objects.clear();
+  }
+
+  /**
+   * Creates an {@link Expr} tree for the expression with the given root.
+   *
+   * <p>The nodes of the created tree do not refer back to the arena.
+   *
+   * @param root The index of the root node.
+   * @return The root of the created tree.
+   */
+  public Expr toExpr(int root) {
+    final var first = getFirst(root);
+    final var exprs = new Expr[root - first + 1];
+
+    // Children always precede their parents, so they are created once a parent is reached.
+    for (var i = first; i <= root; i++) {
+      exprs[i - first] = switch (getKind(i)) {
+        case BINARY ->
+            new BinaryExpr(exprs[lefts[i] - first], getToken(i), exprs[rights[i] - first]);
+        case GROUPING -> new GroupingExpr(exprs[lefts[i] - first]);
+        case UNARY -> new UnaryExpr(getToken(i), exprs[lefts[i] - first]);
+        case LITERAL -> new LiteralExpr(getToken(i), getValue(i));
+        case VARIABLE -> new VariableExpr(getToken(i));
+      };
+    }
+
+    return exprs[root - first];
+  }
+
+  private int addNode(Kind kind, int left, int right, int token, Object value) {
+    if (size == kinds.length) {
+      final var capacity = size * 2;
+
+      kinds = Arrays.copyOf(kinds, capacity);
+      lefts = Arrays.copyOf(lefts, capacity);
+      rights = Arrays.copyOf(rights, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      tokens = Arrays.copyOf(tokens, capacity);
+      constants = Arrays.copyOf(constants, capacity);
+      valueTypes = Arrays.copyOf(valueTypes, capacity);
+      lineStarts = Arrays.copyOf(lineStarts, capacity);
+      lineEnds = Arrays.copyOf(lineEnds, capacity);
+      valueSlots = Arrays.copyOf(valueSlots, capacity);
+      storeSlots = Arrays.copyOf(storeSlots, capacity);
+      variableSlots = Arrays.copyOf(variableSlots, capacity);
+    }
+
+    final var index = size++;
+
+    kinds[index] = (byte) kind.ordinal();
+    lefts[index] = left;
+    rights[index] = right;
+    parents[index] = NONE;
+    tokens[index] = token;
+    constants[index] = kind == Kind.LITERAL ? addConstant(value) : NONE;
+    valueTypes[index] = (byte) ValueType.UNKNOWN.ordinal();
+    valueSlots[index] = NONE;
+    storeSlots[index] = NONE;
+    variableSlots[index] = NONE;
+
+    if (left != NONE) {
+      parents[left] = index;
+    }
+
+    if (right != NONE) {
+      parents[right] = index;
+    }
+
+    return index;
+  }
+
+  /** Returns the number of nodes in the arena. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the first node of the expression with the given root.
+   *
+   * <p>The expression occupies all nodes from the returned index up to and including the root.
+   *
+   * @param root The index of the root node.
+   * @return The index of the first node.
+   */
+  public int getFirst(int root) {
+    var index = root;
+
+    while (lefts[index] != NONE) {
+      index = lefts[index];
+    }
+
+    return index;
+  }
+
+  public Kind getKind(int index) {
+    return KINDS[kinds[index]];
+  }
+
+  public int getLeft(int index) {
+    return lefts[index];
+  }
+
+  public int getRight(int index) {
+    return rights[index];
+  }
+
+  public int getParent(int index) {
+    return parents[index];
+  }
+
+  /**
+   * Creates the operator of binary and unary nodes, the name of variables or the literal token.
+   *
+   * <p>Passes should prefer {@link #getTokenType}, {@link #getLine} and {@link #getSymbol}, which do
+   * not create a token.
+   *
+   * @param index The index of the node.
+   * @return The created token or {@code null} for grouping nodes.
+   */
+  public Token getToken(int index) {
+    final var token = tokens[index];
+
+    if (token == NONE) {
+      return null;
+    }
+
+    final var literal = getKind(index) == Kind.LITERAL ? getValue(index) : null;
+
+    return new Token(TOKEN_TYPES[tokenTypes[token]], getSource(token), tokenStarts[token],
+        tokenLengths[token], literal, tokenLines[token], tokenSymbols[token]);
+  }
+
+  /** Returns the source of a token from the entry with the last start in front of it. */
+  private CharSequence getSource(int token) {
+    final var found = Arrays.binarySearch(sourceStarts, 0, sources.size(), token);
+
+    return sources.get(found >= 0 ? found : -found - 2);
+  }
+
+  /** Returns the type of the token of a node, see {@link #getToken}. */
+  public TokenType getTokenType(int index) {
+    return TOKEN_TYPES[tokenTypes[tokens[index]]];
+  }
+
+  /** Returns the 0-indexed line of the token of a node, see {@link #getToken}. */
+  public int getLine(int index) {
+    return tokenLines[tokens[index]];
+  }
+
+  /** Returns the {@link SymbolTable} id of the name of a variable node. */
+  public int getSymbol(int index) {
+    return tokenSymbols[tokens[index]];
+  }
+
+  /** Returns the value of literal and other constant nodes. */
+  public Object getValue(int index) {
+    final var constant = constants[index];
+
+    if (constant == NONE) {
+      return null;
+    }
+
+    final var bits = constantBits[constant];
+
+    return switch (VALUE_KINDS[constantKinds[constant]]) {
+      case NULL -> null;
+      case BOOLEAN -> bits != 0;
+      case SHORT -> (short) bits;
+      case INT -> (int) bits;
+      case LONG -> bits;
+      case FLOAT -> Float.intBitsToFloat((int) bits);
+      case DOUBLE -> Double.longBitsToDouble(bits);
+      case OBJECT -> objects.get((int) bits);
+    };
+  }
+
+  /** Checks whether the value of the given node is known at compile time. */
+  public boolean isConstant(int index) {
+    return constants[index] != NONE;
+  }
+
+  /**
+   * Marks a node as constant.
+   *
+   * @param index The index of the node.
+   * @param value The value of the node, which must match its value type.
+   */
+  public void setConstant(int index, Object value) {
+    constants[index] = addConstant(value);
+  }
+
+  /**
+   * Adds a value to the constant table as raw bits, or to {@link #objects} if it is not a
+   * primitive.
+   *
+   * @param value The value to add.
+   * @return The index of the constant.
+   */
+  private int addConstant(Object value) {
+    final ValueKind kind;
+    final long bits;
+
+    if (value == null) {
+      kind = ValueKind.NULL;
+      bits = 0;
+    } else if (value instanceof Boolean booleanValue) {
+      kind = ValueKind.BOOLEAN;
+      bits = booleanValue ? 1 : 0;
+    } else if (value instanceof Short shortValue) {
+      kind = ValueKind.SHORT;
+      bits = shortValue;
+    } else if (value instanceof Integer intValue) {
+      kind = ValueKind.INT;
+      bits = intValue;
+    } else if (value instanceof Long longValue) {
+      kind = ValueKind.LONG;
+      bits = longValue;
+    } else if (value instanceof Float floatValue) {
+      kind = ValueKind.FLOAT;
+      bits = Float.floatToRawIntBits(floatValue);
+    } else if (value instanceof Double doubleValue) {
+      kind = ValueKind.DOUBLE;
+      bits = Double.doubleToRawLongBits(doubleValue);
+    } else {
+      kind = ValueKind.OBJECT;
+      bits = objects.size();
+      objects.add(value);
+    }
+
+    if (constantCount == constantKinds.length) {
+      constantKinds = Arrays.copyOf(constantKinds, constantCount * 2);
+      constantBits = Arrays.copyOf(constantBits, constantCount * 2);
+    }
+
+    constantKinds[constantCount] = (byte) kind.ordinal();
+    constantBits[constantCount] = bits;
+
+    return constantCount++;
+  }
+
+  public ValueType getValueType(int index) {
+    return VALUE_TYPES[valueTypes[index]];
+  }
+
+  public void setValueType(int index, ValueType valueType) {
+    valueTypes[index] = (byte) valueType.ordinal();
+  }
+
+  /**
+   * Returns the type which both operands of a binary node are cast to.
+   *
+   * @param index The index of the binary node.
+   * @return The common type of both operands.
+   */
+  public ValueType getOperandType(int index) {
+    return ValueType.findImplicitCastType(
+        getValueType(lefts[index]), getValueType(rights[index]));
+  }
+
+  /**
+   * Returns the type a node has to be cast to as the operand of a binary node.
+   *
+   * @param index The index of the node.
+   * @return The type to cast to or {@code null} if no cast is required.
+   */
+  public ValueType getCastType(int index) {
+    final var parent = parents[index];
+
+    if (parent == NONE || getKind(parent) != Kind.BINARY
+        || getTokenType(parent).isLogical()) {
+      return null;
+    }
+
+    final var valueType = getValueType(index);
+    final var operandType = getOperandType(parent);
+
+    if (operandType.isNumeric() && valueType != operandType) {
+      return operandType;
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the type a node is used as, i.e. its value type after the cast to the operand type of
+   * its parent.
+   *
+   * @param index The index of the node.
+   * @return The type of the used value.
+   */
+  public ValueType getUsedType(int index) {
+    final var castType = getCastType(index);
+
+    return castType != null ? castType : getValueType(index);
+  }
+
+  public int getLineStart(int index) {
+    return lineStarts[index];
+  }
+
+  public int getLineEnd(int index) {
+    return lineEnds[index];
+  }
+
+  /**
+   * Sets the source lines which the given node spans.
+   *
+   * @param index The index of the node.
+   * @param lineStart The first line of the node.
+   * @param lineEnd The last line of the node.
+   */
+  public void setLines(int index, int lineStart, int lineEnd) {
+    lineStarts[index] = lineStart;
+    lineEnds[index] = lineEnd;
+  }
+
+  /**
+   * Returns the local variable slot which holds the value of a node, already cast to the type it
+   * is used as.
+   *
+   * @param index The index of the node.
+   * @return The slot or {@link #NONE} if the value has to be computed.
+   */
+  public int getValueSlot(int index) {
+    return valueSlots[index];
+  }
+
+  public void setValueSlot(int index, int slot) {
+    valueSlots[index] = slot;
+  }
+
+  /**
+   * Returns the local variable slot which the value of a node is additionally stored to once it is
+   * computed, already cast to the type it is used as.
+   *
+   * @param index The index of the node.
+   * @return The slot or {@link #NONE} if the value is not stored.
+   */
+  public int getStoreSlot(int index) {
+    return storeSlots[index];
+  }
+
+  public void setStoreSlot(int index, int slot) {
+    storeSlots[index] = slot;
+  }
+
+  /**
+   * Returns the local variable slot of the variable which a variable node reads, as resolved by
+   * the analysis. Each declared variable has its own slot until the slots are allocated.
+   *
+   * @param index The index of the node.
+   * @return The slot or {@link #NONE} if the variable is unknown.
+   */
+  public int getVariableSlot(int index) {
+    return variableSlots[index];
+  }
+
+  public void setVariableSlot(int index, int slot) {
+    variableSlots[index] = slot;
+  }
+}
@@ -1,6 +1,7 @@
 package sh.sidd.asmi.data;
 
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 
@@ -83,6 +84,9 @@ public abstract class Stmt {
     @Getter private final Token name;
     @Getter private final Expr initializer;
 
+    /** The local variable slot of the variable, as resolved by the analysis. */
+    @Getter @Setter private int variableSlot = ExprArena.NONE;
+
     public VarStmt(Token name, Expr initializer) {
       this.name = name;
       this.initializer = initializer;
@@ -98,6 +102,9 @@ public abstract class Stmt {
     @Getter private final Token name;
     @Getter private final Expr value;
 
+    /** The local variable slot of the variable, as resolved by the analysis. */
+    @Getter @Setter private int variableSlot = ExprArena.NONE;
+
     public AssignStmt(Token name, Expr value) {
       this.name = name;
       this.value = value;
@@ -0,0 +1,128 @@
+package sh.sidd.asmi.data;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifiers of a compilation to dense integer ids.
+ *
+ * <p>Each distinct identifier is stored once and receives the next free id starting at 0. Lookups
+ * work directly on ranges of the source, so identifiers which were already interned do not require
+ * any allocation.
+ */
+public class SymbolTable {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /** Open addressing table storing {@code id + 1} of each symbol, {@code 0} marks a free slot. */
+  private int[] table = new int[INITIAL_CAPACITY * 2];
+
+  /**
+   * Interns the given identifier.
+   *
+   * @param name The identifier to intern.
+   * @return The id of the identifier.
+   */
+  public int intern(String name) {
+    return intern(name, 0, name.length());
+  }
+
+  /**
+   * Interns the identifier found in the given range of the source.
+   *
+   * @param source The source containing the identifier.
+   * @param start The start position of the identifier, inclusive.
+   * @param end The end position of the identifier, exclusive.
+   * @return The id of the identifier.
+   */
+  public int intern(CharSequence source, int start, int end) {
+    final var hash = hash(source, start, end);
+    var slot = hash & (table.length - 1);
+
+    while (table[slot] != 0) {
+      final var symbol = table[slot] - 1;
+
+      if (hashes[symbol] == hash && matches(names[symbol], source, start, end)) {
+        return symbol;
+      }
+
+      slot = (slot + 1) & (table.length - 1);
+    }
+
+    final var symbol = size++;
+
+    if (symbol == names.length) {
+      names = Arrays.copyOf(names, symbol * 2);
+      hashes = Arrays.copyOf(hashes, symbol * 2);
+    }
+
+    names[symbol] = source.subSequence(start, end).toString();
+    hashes[symbol] = hash;
+    table[slot] = symbol + 1;
+
+    if (size * 2 > table.length) {
+      rehash(table.length * 2);
+    }
+
+    return symbol;
+  }
+
+  /**
+   * Returns the identifier for the given id.
+   *
+   * @param symbol The id of the identifier.
+   * @return The identifier.
+   */
+  public String getName(int symbol) {
+    if (symbol < 0 || symbol >= size) {
+      throw new IndexOutOfBoundsException("Unknown symbol: " + symbol);
+    }
+
+    return names[symbol];
+  }
+
+  /** Returns the number of interned identifiers. */
+  public int size() {
+    return size;
+  }
+
+  private void rehash(int capacity) {
+    table = new int[capacity];
+
+    for (int symbol = 0; symbol < size; symbol++) {
+      var slot = hashes[symbol] & (capacity - 1);
+
+      while (table[slot] != 0) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+
+      table[slot] = symbol + 1;
+    }
+  }
+
+  private static int hash(CharSequence source, int start, int end) {
+    var hash = 0;
+
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(String name, CharSequence source, int start, int end) {
+    if (name.length() != end - start) {
+      return false;
+    }
+
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != source.charAt(start + i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
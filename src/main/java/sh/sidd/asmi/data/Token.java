@@ -1,9 +1,111 @@
 package sh.sidd.asmi.data;
 
+import java.util.Objects;
+
 /**
  * A single token of the Asmi language.
  *
+ * <p>Tokens created by the scanner only reference the range of the source they were scanned from.
+ * The lexeme is created lazily on the first call to {@link #lexeme()}.
+ *
+ * <p>Identifier tokens carry the id of their identifier in the {@link SymbolTable} of the
+ * compilation. All other tokens use {@link #NO_SYMBOL}.
+ *
  * See {@link sh.sidd.asmi.scanner.Scanner} on how tokens are generated.
  */
-public record Token(TokenType tokenType, String lexeme,
-                    Object literal, int line) {}
+public final class Token {
+  public static final int NO_SYMBOL = -1;
+
+  private final TokenType tokenType;
+  private final CharSequence source;
+  private final int start;
+  private final int length;
+  private final Object literal;
+  private final int line;
+  private final int symbol;
+  private String lexeme;
+
+  public Token(TokenType tokenType, String lexeme, Object literal, int line) {
+    this(tokenType, lexeme, 0, lexeme.length(), literal, line, NO_SYMBOL);
+    this.lexeme = lexeme;
+  }
+
+  public Token(TokenType tokenType, CharSequence source, int start, int length,
+               Object literal, int line, int symbol) {
+    this.tokenType = tokenType;
+    this.source = source;
+    this.start = start;
+    this.length = length;
+    this.literal = literal;
+    this.line = line;
+    this.symbol = symbol;
+  }
+
+  public TokenType tokenType() {
+    return tokenType;
+  }
+
+  /** Returns the text of the token and creates it if required. */
+  public String lexeme() {
+    if (lexeme == null) {
+      lexeme = source.subSequence(start, start + length).toString();
+    }
+
+    return lexeme;
+  }
+
+  public Object literal() {
+    return literal;
+  }
+
+  public int line() {
+    return line;
+  }
+
+  /** Returns the source which the start and end positions refer to. */
+  CharSequence source() {
+    return source;
+  }
+
+  /** Returns the start position of the token in its source. */
+  public int start() {
+    return start;
+  }
+
+  /** Returns the end position of the token in its source, exclusive. */
+  public int end() {
+    return start + length;
+  }
+
+  /** Returns the id of the identifier in the {@link SymbolTable} or {@link #NO_SYMBOL}. */
+  public int symbol() {
+    return symbol;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof Token other)) {
+      return false;
+    }
+
+    return tokenType == other.tokenType
+        && line == other.line
+        && Objects.equals(literal, other.literal)
+        && lexeme().equals(other.lexeme());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(tokenType, lexeme(), literal, line);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Token[tokenType=%s, lexeme=%s, literal=%s, line=%d]", tokenType, lexeme(), literal, line);
+  }
+}
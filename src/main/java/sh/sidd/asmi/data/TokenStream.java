@@ -0,0 +1,102 @@
+package sh.sidd.asmi.data;
+
+import java.util.List;
+
+/**
+ * A stream of tokens which are produced on demand.
+ *
+ * <p>The stream is a cursor over its tokens. The fields of the current token are read via the
+ * accessors, so no {@link Token} object has to be created for tokens which are only checked and
+ * skipped, e.g. keywords and punctuation.
+ *
+ * See {@link sh.sidd.asmi.scanner.Scanner} on how tokens are generated.
+ * See {@link sh.sidd.asmi.parser.TokenReader} on how tokens are consumed.
+ */
+public interface TokenStream {
+
+  /**
+   * Moves to the next token of the stream. Must be called once before the first token is read.
+   *
+   * <p>Once the end of the stream is reached, the current token stays an {@link TokenType#EOF}
+   * token for every further call.
+   */
+  void advance();
+
+  /** Returns the type of the current token. */
+  TokenType tokenType();
+
+  /** Returns the source which the start and length of the current token refer to. */
+  CharSequence source();
+
+  /** Returns the start position of the current token in its source. */
+  int start();
+
+  /** Returns the length of the current token in its source. */
+  int length();
+
+  /** Returns the 0-indexed line of the current token. */
+  int line();
+
+  /** Returns the identifier id of the current token or {@link Token#NO_SYMBOL}. */
+  int symbol();
+
+  /** Returns the literal of the current token or {@code null} if it has none. */
+  Object literal();
+
+  /**
+   * Creates a stream over an already scanned list of tokens.
+   *
+   * @param tokens The tokens to stream. The last token must be an {@link TokenType#EOF} token.
+   * @return The stream of the tokens.
+   */
+  static TokenStream of(List<Token> tokens) {
+    return new TokenStream() {
+      private int currentPos = -1;
+      private Token current;
+
+      @Override
+      public void advance() {
+        if (currentPos < tokens.size() - 1) {
+          currentPos++;
+        }
+
+        current = tokens.get(currentPos);
+      }
+
+      @Override
+      public TokenType tokenType() {
+        return current.tokenType();
+      }
+
+      @Override
+      public CharSequence source() {
+        return current.source();
+      }
+
+      @Override
+      public int start() {
+        return current.start();
+      }
+
+      @Override
+      public int length() {
+        return current.end() - current.start();
+      }
+
+      @Override
+      public int line() {
+        return current.line();
+      }
+
+      @Override
+      public int symbol() {
+        return current.symbol();
+      }
+
+      @Override
+      public Object literal() {
+        return current.literal();
+      }
+    };
+  }
+}
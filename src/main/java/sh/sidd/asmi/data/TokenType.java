@@ -59,6 +59,13 @@ public enum TokenType {
 
   EOF;
 
+  static {
+    // Token masks are stored in a single long.
+    if (values().length > Long.SIZE) {
+      throw new ExceptionInInitializerError("Too many token types for token masks.");
+    }
+  }
+
   @Getter private final String keyword;
 
   TokenType() {
@@ -69,6 +76,43 @@ public enum TokenType {
     this.keyword = keyword;
   }
 
+  /**
+   * Returns the bit of this token type for use in token masks.
+   *
+   * <p>A mask combines several token types via bitwise or and allows matching a token against all of
+   * them with a single operation, see {@link #maskOf}.
+   */
+  public long mask() {
+    return 1L << ordinal();
+  }
+
+  /**
+   * Combines the given token types into a single mask.
+   *
+   * @param types The token types to combine.
+   * @return The mask of all token types.
+   */
+  public static long maskOf(TokenType... types) {
+    var mask = 0L;
+
+    for (final var type : types) {
+      mask |= type.mask();
+    }
+
+    return mask;
+  }
+
+  /** Checks whether this token is a comparison operator. */
+  public boolean isComparison() {
+    return this == BANG_EQUAL || this == EQUAL_EQUAL || this == GREATER
+        || this == GREATER_EQUAL || this == LESS || this == LESS_EQUAL;
+  }
+
+  /** Checks whether this token is a short-circuiting logical operator. */
+  public boolean isLogical() {
+    return this == AND || this == OR;
+  }
+
   /** Checks whether this token is a keyword token. */
   public boolean isKeyword() {
     return keyword != null;
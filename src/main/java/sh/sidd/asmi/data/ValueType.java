@@ -40,11 +40,21 @@ public enum ValueType {
     return this == SHORT || this == INT || this == LONG || this == FLOAT || this == DOUBLE;
   }
 
+  /** Checks whether values of this type are computed as `int` by the JVM. */
+  public boolean isComputedAsInt() {
+    return this == SHORT || this == INT;
+  }
+
   /** Checks whether this type is a floating point number. */
   public boolean isFloating() {
     return this == FLOAT || this == DOUBLE;
   }
 
+  /** Returns the number of local variable slots a value of this type occupies. */
+  public int getSlotSize() {
+    return this == LONG || this == DOUBLE ? 2 : 1;
+  }
+
   /** Attempts to find the correct resulting type for implicitly cast operations. */
   public static ValueType findImplicitCastType(ValueType typeOne, ValueType typeTwo) {
     if(typeOne == null || typeTwo == null) {
@@ -85,7 +95,7 @@ public enum ValueType {
     return switch (this) {
       case SHORT -> "S";
       case INT -> "I";
-      case LONG -> "L";
+      case LONG -> "J";
       case FLOAT -> "F";
       case DOUBLE -> "D";
       case STRING -> "Ljava/lang/String;";
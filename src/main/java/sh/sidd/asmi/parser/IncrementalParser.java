@@ -0,0 +1,504 @@
+package sh.sidd.asmi.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import sh.sidd.asmi.ErrorHandler;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.SymbolTable;
+import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenStream;
+import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.scanner.LineIndex;
+import sh.sidd.asmi.scanner.Rope;
+import sh.sidd.asmi.scanner.Scanner;
+import sh.sidd.asmi.scanner.SourceRetriever;
+
+/**
+ * Parser which keeps the statements of a source and updates them when the source is edited.
+ *
+ * <p>Every top-level statement is stored together with the range of the source it was parsed from.
+ * On an edit, scanning and parsing restart at the end of the last statement in front of the edit
+ * and stop as soon as the start of an unchanged statement after the edit is reached. The subtrees
+ * of all other statements are reused as they are.
+ *
+ * <p>An edit does not rebuild the state of the whole source:
+ *
+ * <ul>
+ *   <li>The source is a {@link Rope}, which is edited without copying the whole text.
+ *   <li>The {@link LineIndex} keeps its line starts in a gap buffer as well, so an edit only moves
+ *       the line starts between the previous and the current edit.
+ *   <li>The entries are stored in a gap buffer. The gap is kept at the last edit and entries behind
+ *       it store their positions and lines relative to the end of the source, so an edit only
+ *       touches the entries between the previous and the current edit.
+ *   <li>Statements behind an edit which changes the number of lines are reused as they are. Their
+ *       tokens keep the lines they were parsed at, the offset to their current lines is kept per
+ *       entry, see {@link #getLineOffsets}. Errors are stored as lines and messages and are only
+ *       formatted at their current lines once they are requested.
+ * </ul>
+ */
+public class IncrementalParser implements SourceRetriever {
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * A parsed top-level statement.
+   *
+   * <p>Entries in front of the gap store absolute positions and lines. Entries behind the gap
+   * store them relative to the length and the last line of the source.
+   *
+   * @param stmt The statement or {@code null} if it could not be parsed.
+   * @param start The position of the first token of the statement.
+   * @param end The end position of the last token of the statement, exclusive.
+   * @param endLine The line of the last token of the statement.
+   * @param tokenEndLine The line of the last token as stored in the tokens of the statement and
+   *     in its errors. Differs from the end line by the line offset of the entry once lines were
+   *     added or removed in front of it.
+   * @param leadingErrors The errors reported while scanning in front of the statement.
+   * @param errors The errors reported while scanning and parsing the statement.
+   */
+  private record Entry(Stmt stmt, int start, int end, int endLine, int tokenEndLine,
+                       List<EntryError> leadingErrors, List<EntryError> errors) {
+
+    Entry move(int delta, int lineDelta) {
+      return new Entry(stmt, start + delta, end + delta, endLine + lineDelta, tokenEndLine,
+          leadingErrors, errors);
+    }
+
+    Entry withLeadingErrors(List<EntryError> leadingErrors) {
+      return new Entry(stmt, start, end, endLine, tokenEndLine, leadingErrors, errors);
+    }
+  }
+
+  /**
+   * An error of an entry at the line of its token lines.
+   *
+   * @param line The line the error was reported at.
+   * @param lexeme The text of the token which caused the error or {@code null}.
+   * @param message The error message.
+   */
+  private record EntryError(int line, String lexeme, String message) {
+
+    EntryError move(int lineDelta) {
+      return new EntryError(line + lineDelta, lexeme, message);
+    }
+
+    String format(int lineOffset) {
+      return ErrorHandler.format(line + lineOffset, lexeme, message);
+    }
+  }
+
+  /** Error handler which additionally records the line and message of each error. */
+  private static class RecordingErrorHandler extends ErrorHandler {
+    private final List<EntryError> recorded = new ArrayList<>();
+
+    RecordingErrorHandler() {
+      super(false);
+    }
+
+    @Override
+    public void report(int line, String message) {
+      super.report(line, message);
+      recorded.add(new EntryError(line, null, message));
+    }
+
+    @Override
+    public void report(Token token, String message) {
+      super.report(token, message);
+      recorded.add(new EntryError(token.line(), token.lexeme(), message));
+    }
+  }
+
+  /** An error reported by the scanner while it produced the token at the given position. */
+  private record ScanError(int tokenStart, EntryError error) {}
+
+  /** Streams the tokens of a scanner and records the errors reported while scanning each token. */
+  private static class ScanErrorTrackingStream implements TokenStream {
+    private final Scanner scanner;
+    private final RecordingErrorHandler scanErrorHandler;
+    private final List<ScanError> scanErrors;
+
+    ScanErrorTrackingStream(Scanner scanner, RecordingErrorHandler scanErrorHandler,
+        List<ScanError> scanErrors) {
+      this.scanner = scanner;
+      this.scanErrorHandler = scanErrorHandler;
+      this.scanErrors = scanErrors;
+    }
+
+    @Override
+    public void advance() {
+      scanner.advance();
+
+      final var errors = scanErrorHandler.recorded;
+
+      for (int i = scanErrors.size(); i < errors.size(); i++) {
+        scanErrors.add(new ScanError(scanner.start(), errors.get(i)));
+      }
+    }
+
+    @Override
+    public TokenType tokenType() {
+      return scanner.tokenType();
+    }
+
+    @Override
+    public CharSequence source() {
+      return scanner.source();
+    }
+
+    @Override
+    public int start() {
+      return scanner.start();
+    }
+
+    @Override
+    public int length() {
+      return scanner.length();
+    }
+
+    @Override
+    public int line() {
+      return scanner.line();
+    }
+
+    @Override
+    public int symbol() {
+      return scanner.symbol();
+    }
+
+    @Override
+    public Object literal() {
+      return scanner.literal();
+    }
+  }
+
+  private final SymbolTable symbolTable = new SymbolTable();
+  private final LineIndex lineIndex;
+  private Rope source;
+  private int lastLine;
+  private Entry[] entries = new Entry[INITIAL_CAPACITY];
+  private int gapStart;
+  private int gapEnd = INITIAL_CAPACITY;
+  private List<EntryError> trailingErrors;
+  private int trailingErrorsLastLine;
+
+  public IncrementalParser(String source) {
+    this.source = Rope.of(source);
+    this.lineIndex = new LineIndex(this.source);
+    this.lastLine = countLines(source, 0, source.length());
+
+    parseRange(0, 0, 0);
+  }
+
+  /**
+   * Applies a text edit to the source and updates the affected statements.
+   *
+   * @param offset The position at which the edit starts.
+   * @param length The number of characters which are replaced.
+   * @param replacement The text which replaces the given range.
+   */
+  public void edit(int offset, int length, String replacement) {
+    if (offset < 0 || length < 0 || offset + length > source.length()) {
+      throw new IndexOutOfBoundsException(String.format(
+          "Invalid edit range [%d, %d) for length %d", offset, offset + length, source.length()));
+    }
+
+    // Statements touching the edit are damaged as well, as their first or last token may grow.
+    final var firstDamaged = findFirstEntry(index -> getEnd(index) >= offset);
+    final var firstUndamaged = findFirstEntry(index -> getStart(index) > offset + length);
+
+    // Entries behind the gap are relative to the end of the source, so the edit does not move them.
+    moveGap(firstDamaged);
+
+    lastLine += countLines(replacement, 0, replacement.length())
+        - countLines(source, offset, offset + length);
+    source = source.replace(offset, offset + length, replacement);
+    lineIndex.replace(source, offset, length, replacement.length());
+
+    final var startPos = gapStart > 0 ? entries[gapStart - 1].end() : 0;
+    final var startLine = gapStart > 0 ? entries[gapStart - 1].endLine() : 0;
+
+    parseRange(startPos, startLine, firstUndamaged);
+  }
+
+  /** Returns the current source. */
+  public String getSource() {
+    return source.toString();
+  }
+
+  /**
+   * Returns all successfully parsed top-level statements in source order.
+   *
+   * <p>Statements which were reused after an edit are returned unchanged, so their tokens may
+   * refer to the lines they were parsed at, see {@link #getLineOffsets}.
+   */
+  public List<Stmt> getStatements() {
+    final var count = getEntryCount();
+    final var statements = new ArrayList<Stmt>(count);
+
+    for (int i = 0; i < count; i++) {
+      final var stmt = getEntry(i).stmt();
+
+      if (stmt != null) {
+        statements.add(stmt);
+      }
+    }
+
+    return statements;
+  }
+
+  /**
+   * Returns the number of lines each statement of {@link #getStatements} moved since it was
+   * parsed.
+   *
+   * <p>Adding the offset of a statement to the line of any of its tokens gives its current line.
+   */
+  public int[] getLineOffsets() {
+    final var count = getEntryCount();
+    final var offsets = new int[count];
+    var statementCount = 0;
+
+    for (int i = 0; i < count; i++) {
+      if (getEntry(i).stmt() != null) {
+        offsets[statementCount++] = getLineOffset(i);
+      }
+    }
+
+    return Arrays.copyOf(offsets, statementCount);
+  }
+
+  /** Returns all errors of the current source in source order. */
+  public List<String> getErrors() {
+    final var errors = new ArrayList<String>();
+    final var count = getEntryCount();
+
+    for (int i = 0; i < count; i++) {
+      final var entry = getEntry(i);
+
+      if (entry.leadingErrors().isEmpty() && entry.errors().isEmpty()) {
+        continue;
+      }
+
+      final var lineOffset = getLineOffset(i);
+
+      for (final var error : entry.leadingErrors()) {
+        errors.add(error.format(lineOffset));
+      }
+
+      for (final var error : entry.errors()) {
+        errors.add(error.format(lineOffset));
+      }
+    }
+
+    for (final var error : trailingErrors) {
+      errors.add(error.format(lastLine - trailingErrorsLastLine));
+    }
+
+    return errors;
+  }
+
+  @Override
+  public String getLine(int line) {
+    return lineIndex.getLine(line);
+  }
+
+  /**
+   * Scans and parses statements of the current source.
+   *
+   * <p>Parsing stops at the end of the source or once the start of an entry at or after the given
+   * resync index is reached. All entries between the gap and the reached entry are replaced by the
+   * parsed entries, the reached entry and all following entries are reused.
+   *
+   * @param startPos The position to start at, must be outside of tokens and comments.
+   * @param startLine The line of the start position.
+   * @param resyncIndex The index of the first entry behind the gap which may be reused.
+   */
+  private void parseRange(int startPos, int startLine, int resyncIndex) {
+    final var scanErrorHandler = new RecordingErrorHandler();
+    final var parseErrorHandler = new RecordingErrorHandler();
+    final var scanner = new Scanner(
+        source, scanErrorHandler, symbolTable, startPos, source.length(), startLine);
+    final var scanErrors = new ArrayList<ScanError>();
+    final var tokens = new ScanErrorTrackingStream(scanner, scanErrorHandler, scanErrors);
+    final var parser = new Parser(parseErrorHandler, tokens);
+    final var parsed = new ArrayList<Entry>();
+    final var entryCount = getEntryCount();
+    var resync = resyncIndex;
+    var reuseFrom = -1;
+
+    while (!parser.isAtEnd()) {
+      final var first = parser.currentToken();
+
+      while (resync < entryCount && getStart(resync) < first.start()) {
+        resync++;
+      }
+
+      if (resync < entryCount && getStart(resync) == first.start()) {
+        reuseFrom = resync;
+        break;
+      }
+
+      final var errorCount = parseErrorHandler.recorded.size();
+      final var stmt = parser.parseTopLevelStatement();
+      final var last = parser.previousToken();
+      final var errors = parseErrorHandler.recorded;
+
+      parsed.add(new Entry(stmt, first.start(), last.end(), last.line(), last.line(),
+          new ArrayList<>(), new ArrayList<>(errors.subList(errorCount, errors.size()))));
+    }
+
+    // Assign scanner errors to the statements containing the token they were reported for.
+    final var endTokenStart = parser.currentToken().start();
+    final var endErrors = new ArrayList<EntryError>();
+    var entryIndex = 0;
+
+    for (final var error : scanErrors) {
+      if (error.tokenStart() >= endTokenStart) {
+        endErrors.add(error.error());
+        continue;
+      }
+
+      while (parsed.get(entryIndex).end() <= error.tokenStart()) {
+        entryIndex++;
+      }
+
+      final var entry = parsed.get(entryIndex);
+
+      if (error.tokenStart() == entry.start()) {
+        entry.leadingErrors().add(error.error());
+      } else {
+        entry.errors().add(error.error());
+      }
+    }
+
+    // Drop the replaced entries behind the gap.
+    final var keptSlot = reuseFrom >= 0 ? toSlot(reuseFrom) : entries.length;
+
+    Arrays.fill(entries, gapEnd, keptSlot, null);
+    gapEnd = keptSlot;
+
+    if (reuseFrom >= 0) {
+      // The errors were reported at the current lines, the entry stores them at its token lines.
+      // The entry directly behind the gap has the index of the gap start.
+      final var lineOffset = getLineOffset(gapStart);
+      final var leadingErrors = new ArrayList<EntryError>(endErrors.size());
+
+      for (final var error : endErrors) {
+        leadingErrors.add(error.move(-lineOffset));
+      }
+
+      entries[gapEnd] = entries[gapEnd].withLeadingErrors(leadingErrors);
+    } else {
+      trailingErrors = endErrors;
+      trailingErrorsLastLine = lastLine;
+    }
+
+    for (final var entry : parsed) {
+      insertAtGap(entry);
+    }
+  }
+
+  private int getEntryCount() {
+    return entries.length - (gapEnd - gapStart);
+  }
+
+  /** Returns the index in the entry array of the entry at the given index. */
+  private int toSlot(int index) {
+    return index < gapStart ? index : index + gapEnd - gapStart;
+  }
+
+  private Entry getEntry(int index) {
+    return entries[toSlot(index)];
+  }
+
+  /** Returns the absolute start position of the entry at the given index. */
+  private int getStart(int index) {
+    return index < gapStart ? entries[index].start() : getEntry(index).start() + source.length();
+  }
+
+  /** Returns the absolute end position of the entry at the given index. */
+  private int getEnd(int index) {
+    return index < gapStart ? entries[index].end() : getEntry(index).end() + source.length();
+  }
+
+  /** Returns the absolute end line of the entry at the given index. */
+  private int getEndLine(int index) {
+    return index < gapStart ? entries[index].endLine() : getEntry(index).endLine() + lastLine;
+  }
+
+  /** Returns the number of lines the entry at the given index moved since it was parsed. */
+  private int getLineOffset(int index) {
+    return getEndLine(index) - getEntry(index).tokenEndLine();
+  }
+
+  /**
+   * Moves the gap in front of the entry at the given index, converting the positions of all moved
+   * entries.
+   *
+   * @param index The index of the entry which should directly follow the gap.
+   */
+  private void moveGap(int index) {
+    while (gapStart > index) {
+      final var entry = entries[--gapStart];
+      entries[gapStart] = null;
+      entries[--gapEnd] = entry.move(-source.length(), -lastLine);
+    }
+
+    while (gapStart < index) {
+      final var entry = entries[gapEnd];
+      entries[gapEnd++] = null;
+      entries[gapStart++] = entry.move(source.length(), lastLine);
+    }
+  }
+
+  /** Inserts an entry with absolute positions at the gap. */
+  private void insertAtGap(Entry entry) {
+    if (gapStart == gapEnd) {
+      final var tailLength = entries.length - gapEnd;
+      final var grown = Arrays.copyOf(entries, entries.length * 2);
+
+      System.arraycopy(entries, gapEnd, grown, grown.length - tailLength, tailLength);
+      Arrays.fill(grown, gapStart, grown.length - tailLength, null);
+
+      gapEnd = grown.length - tailLength;
+      entries = grown;
+    }
+
+    entries[gapStart++] = entry;
+  }
+
+  /**
+   * Finds the first entry matching a condition which holds for all entries following it.
+   *
+   * @param condition The condition to check for the index of an entry.
+   * @return The index of the first matching entry or the number of entries if none matched.
+   */
+  private int findFirstEntry(IntPredicate condition) {
+    var low = 0;
+    var high = getEntryCount();
+
+    while (low < high) {
+      final var mid = (low + high) >>> 1;
+
+      if (condition.test(mid)) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+
+    return low;
+  }
+
+  private static int countLines(CharSequence text, int start, int end) {
+    var lines = 0;
+
+    for (int i = start; i < end; i++) {
+      if (text.charAt(i) == '\n') {
+        lines++;
+      }
+    }
+
+    return lines;
+  }
+}
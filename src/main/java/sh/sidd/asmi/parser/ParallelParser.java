@@ -0,0 +1,141 @@
+package sh.sidd.asmi.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import sh.sidd.asmi.ErrorHandler;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.scanner.TokenBuffer;
+
+/**
+ * Parses large programs by splitting them into segments of top-level statements which are parsed
+ * in parallel.
+ *
+ * <p>A cheap sequential pre-pass only tracks the nesting depth of blocks via the `def`, `if`,
+ * `while` and `end` tokens. The positions right before top-level `def` statements and right after
+ * top-level blocks are safe segment boundaries, as no statement spans across them.
+ *
+ * <p>Each segment is parsed on a {@link ForkJoinPool} by its own {@link Parser} and reports errors
+ * to its own {@link ErrorHandler}. The results are concatenated in source order. If the blocks of
+ * the program are unbalanced, the program is parsed sequentially instead, so malformed programs
+ * are reported exactly like by the {@link Parser}.
+ */
+public class ParallelParser {
+  private static final int DEFAULT_SEGMENT_SIZE = 1 << 14;
+
+  private final TokenBuffer tokens;
+  private final ErrorHandler errorHandler;
+  private final ForkJoinPool pool;
+  private final int segmentSize;
+
+  private record Segment(int start, int end) {}
+
+  private record SegmentResult(List<Stmt> statements, ErrorHandler errorHandler) {}
+
+  public ParallelParser(TokenBuffer tokens, ErrorHandler errorHandler) {
+    this(tokens, errorHandler, ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Creates a new parallel parser.
+   *
+   * @param tokens The tokens to parse. Must end with an {@link TokenType#EOF} token.
+   * @param errorHandler The handler to report errors to.
+   * @param pool The pool to parse the segments on.
+   * @param segmentSize The minimum number of tokens per segment.
+   */
+  public ParallelParser(TokenBuffer tokens, ErrorHandler errorHandler, ForkJoinPool pool,
+      int segmentSize) {
+    this.tokens = tokens;
+    this.errorHandler = errorHandler;
+    this.pool = pool;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Parses all tokens into statements.
+   *
+   * @return The parsed statements in source order.
+   */
+  public List<Stmt> parse() {
+    final var segments = findSegments();
+
+    if (segments == null) {
+      return new Parser(errorHandler, tokens.stream()).parse();
+    }
+
+    final var tasks = new ArrayList<ForkJoinTask<SegmentResult>>(segments.size());
+
+    for (final var segment : segments) {
+      tasks.add(pool.submit(() -> parseSegment(segment)));
+    }
+
+    final var statements = new ArrayList<Stmt>();
+
+    for (final var task : tasks) {
+      final var result = task.join();
+
+      statements.addAll(result.statements());
+      errorHandler.merge(result.errorHandler());
+    }
+
+    return statements;
+  }
+
+  /**
+   * Splits the tokens before top-level `def` statements and after top-level blocks.
+   *
+   * @return The segments or {@code null} if the blocks of the program are unbalanced.
+   */
+  private List<Segment> findSegments() {
+    final var segments = new ArrayList<Segment>();
+    final var eofIndex = tokens.size() - 1;
+    var segmentStart = 0;
+    var depth = 0;
+
+    for (int i = 0; i < eofIndex; i++) {
+      final var tokenType = tokens.getTokenType(i);
+
+      if (tokenType == TokenType.DEF && depth == 0 && i - segmentStart >= segmentSize) {
+        segments.add(new Segment(segmentStart, i));
+        segmentStart = i;
+      }
+
+      if (tokenType == TokenType.DEF || tokenType == TokenType.IF
+          || tokenType == TokenType.WHILE) {
+        depth++;
+      } else if (tokenType == TokenType.END) {
+        depth--;
+
+        if (depth < 0) {
+          return null;
+        }
+
+        if (depth == 0 && i + 1 - segmentStart >= segmentSize) {
+          segments.add(new Segment(segmentStart, i + 1));
+          segmentStart = i + 1;
+        }
+      }
+    }
+
+    if (depth != 0) {
+      return null;
+    }
+
+    if (segmentStart < eofIndex || segments.isEmpty()) {
+      segments.add(new Segment(segmentStart, eofIndex));
+    }
+
+    return segments;
+  }
+
+  private SegmentResult parseSegment(Segment segment) {
+    final var segmentErrorHandler = ErrorHandler.collecting();
+    final var parser =
+        new Parser(segmentErrorHandler, tokens.stream(segment.start(), segment.end()));
+
+    return new SegmentResult(parser.parse(), segmentErrorHandler);
+  }
+}
@@ -3,32 +3,93 @@ package sh.sidd.asmi.parser;
 import sh.sidd.asmi.ErrorHandler;
 import sh.sidd.asmi.data.Expr;
 import sh.sidd.asmi.data.Expr.*;
+import sh.sidd.asmi.data.ExprArena;
 import sh.sidd.asmi.data.Stmt;
 import sh.sidd.asmi.data.Stmt.*;
 import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenStream;
 import sh.sidd.asmi.data.TokenType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Parses a list of {@link Token} into an abstract syntax tree, i.e a list of {@link Stmt}.
+ * Parses {@link Token} into an abstract syntax tree, i.e a list of {@link Stmt}.
+ *
+ * <p>Expressions are always built as nodes of an {@link ExprArena}. If the parser is given the
+ * arena of the compiler, each expression is only represented by an {@link ArenaExpr} handle.
+ * Otherwise, the nodes are built in a scratch arena and converted into an {@link Expr} tree.
  *
  * See {@link sh.sidd.asmi.scanner.Scanner} on how {@link Token} are generated.
  * See {@link sh.sidd.asmi.compiler.Compiler} on how {@link Stmt} are compiled.
  */
 public class Parser {
+  /** Binary operators by precedence, from the loosest to the tightest binding. */
+  private static final long[] BINARY_OPERATORS = {
+      TokenType.OR.mask(),
+      TokenType.AND.mask(),
+      TokenType.maskOf(TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL),
+      TokenType.maskOf(
+          TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL),
+      TokenType.maskOf(TokenType.MINUS, TokenType.PLUS),
+      TokenType.maskOf(TokenType.SLASH, TokenType.STAR)
+  };
+
+  /** Precedence of binary operators by token type ordinal. 0 for all other token types. */
+  private static final int[] PRECEDENCE = createPrecedenceTable();
+
+  /** Precedence of unary operators, which bind tighter than all binary operators. */
+  private static final int UNARY_PRECEDENCE = Integer.MAX_VALUE;
+
+  /** Precedence of opening parentheses, which are never combined with operands. */
+  private static final int GROUP_PRECEDENCE = 0;
+
+  private static final long UNARY_OPERATORS = TokenType.maskOf(TokenType.BANG, TokenType.MINUS);
+  private static final long LITERALS = TokenType.maskOf(TokenType.NUMBER, TokenType.STRING);
+  private static final long IF_BLOCK_END = TokenType.maskOf(TokenType.ELSE, TokenType.END);
 
   private final ErrorHandler errorHandler;
   private final TokenReader reader;
+  private final ExprArena arena;
+  private final boolean buildTrees;
+
+  /** The arena token of each pending operator, {@link ExprArena#NONE} for parentheses. */
+  private int[] operators = new int[16];
+  private int[] operatorPrecedences = new int[16];
+  private int operatorCount;
+  private int[] operands = new int[16];
+  private int operandCount;
 
   public Parser(ErrorHandler errorHandler, List<Token> tokens) {
+    this(errorHandler, TokenStream.of(tokens));
+  }
+
+  public Parser(ErrorHandler errorHandler, TokenStream tokens) {
+    this(errorHandler, tokens, new ExprArena(), true);
+  }
+
+  /**
+   * Creates a parser which adds all expressions to the given arena.
+   *
+   * @param errorHandler The handler to report errors to.
+   * @param tokens The tokens to parse.
+   * @param arena The arena to add the expressions to, see {@link ArenaExpr}.
+   */
+  public Parser(ErrorHandler errorHandler, TokenStream tokens, ExprArena arena) {
+    this(errorHandler, tokens, arena, false);
+  }
+
+  private Parser(ErrorHandler errorHandler, TokenStream tokens, ExprArena arena,
+      boolean buildTrees) {
     this.errorHandler = errorHandler;
     this.reader = new TokenReader(tokens);
+    this.arena = arena;
+    this.buildTrees = buildTrees;
   }
 
   /**
-   * Parses the given list of tokens into statements.
+   * Parses the given tokens into statements.
    *
    * @return The parsed statements.
    */
@@ -36,18 +97,92 @@ public class Parser {
     final var statements = new ArrayList<Stmt>();
 
     while (!reader.isAtEnd()) {
-      try {
-        statements.add(parseStatement());
-      } catch (ParserException ex) {
-        errorHandler.report(ex.getToken(), ex.getMessage());
+      final var stmt = parseTopLevelStatement();
+
+      if (stmt != null) {
+        statements.add(stmt);
       }
     }
 
     return statements;
   }
 
-  /** Parses a single statement. */
+  /**
+   * Parses a single top-level statement and reports errors to the error handler.
+   *
+   * @return The parsed statement or {@code null} if the statement could not be parsed.
+   */
+  public Stmt parseTopLevelStatement() {
+    final var startPos = reader.getPosition();
+
+    try {
+      return parseStatement();
+    } catch (ParserException ex) {
+      errorHandler.report(ex.getToken(), ex.getMessage());
+
+      // Skip the offending token, otherwise parsing would never advance.
+      if (reader.getPosition() == startPos) {
+        reader.advance();
+      }
+
+      return null;
+    }
+  }
+
+  /** Checks whether all tokens were parsed. */
+  public boolean isAtEnd() {
+    return reader.isAtEnd();
+  }
+
+  /** Returns the next token to be parsed. */
+  public Token currentToken() {
+    return reader.peek();
+  }
+
+  /** Returns the last parsed token. */
+  public Token previousToken() {
+    return reader.previous();
+  }
+
+  /**
+   * Parses a single statement, including all nested statements.
+   *
+   * <p>Blocks of `def`, `if` and `while` statements are tracked on an explicit stack instead of
+   * being parsed recursively, so the nesting depth is only limited by the heap.
+   */
   private Stmt parseStatement() {
+    final var openBlocks = new ArrayList<OpenBlock>();
+
+    while (true) {
+      final Stmt stmt;
+
+      if (!openBlocks.isEmpty() && isBlockEnd(openBlocks.get(openBlocks.size() - 1))) {
+        stmt = closeBlock(openBlocks);
+
+        if (stmt == null) {
+          continue;
+        }
+      } else {
+        final var block = openBlock();
+
+        if (block != null) {
+          openBlocks.add(block);
+          continue;
+        }
+
+        stmt = parseSimpleStatement();
+      }
+
+      if (openBlocks.isEmpty()) {
+        return stmt;
+      }
+
+      openBlocks.get(openBlocks.size() - 1).statements.add(stmt);
+    }
+  }
+
+  /** Parses a single statement which does not contain a block. */
+  private Stmt parseSimpleStatement() {
     if (reader.advanceIfMatch(TokenType.PRINT)) {
       return parsePrintStatement();
     }
@@ -60,18 +195,6 @@ public class Parser {
       return parseVarStatement();
     }
 
-    if (reader.advanceIfMatch(TokenType.DEF)) {
-      return parseDefStatement();
-    }
-
-    if (reader.advanceIfMatch(TokenType.IF)) {
-      return parseIfStatement();
-    }
-
-    if (reader.advanceIfMatch(TokenType.WHILE)) {
-      return parseWhileStatement();
-    }
-
     return parseAssignmentOrExpressionStatement();
   }
 
@@ -87,7 +210,8 @@ public class Parser {
 
   /** Parses a `var` statement. */
   private Stmt parseVarStatement() {
-    final var name = reader.consumeExpected(TokenType.IDENTIFIER, "Expected variable name.");
+    reader.consumeExpected(TokenType.IDENTIFIER, "Expected variable name.");
+    final var name = reader.previous();
 
     if (reader.advanceIfMatch(TokenType.EQUAL)) {
       return new VarStmt(name, parseExpression());
@@ -96,67 +220,107 @@ public class Parser {
     }
   }
 
+  /** A `def`, `if` or `while` statement whose block is still being parsed. */
+  private static final class OpenBlock {
+    private final TokenType type;
+    private final Token name;
+    private final Expr condition;
+    private List<Stmt> statements = new ArrayList<>();
+    private BlockStmt thenBlock;
+    private long endTokens;
+
+    private OpenBlock(TokenType type, Token name, Expr condition, long endTokens) {
+      this.type = type;
+      this.name = name;
+      this.condition = condition;
+      this.endTokens = endTokens;
+    }
+  }
+
   /**
-   * Parses statements until a given end token appears.
+   * Parses the head of a `def`, `if` or `while` statement.
    *
-   * The end-token should still be verified and consumed.
+   * @return The opened block or {@code null} if the current statement does not have a block.
    */
-  private BlockStmt parseBlock(TokenType ...endTokens) {
-    final var statements = new ArrayList<Stmt>();
-
-    while(!reader.isAtEnd() && !reader.check(endTokens)) {
-      statements.add(parseStatement());
+  private OpenBlock openBlock() {
+    if (reader.advanceIfMatch(TokenType.DEF)) {
+      reader.consumeExpected(TokenType.IDENTIFIER, "Expected method name.");
+      final var name = reader.previous();
+      return new OpenBlock(TokenType.DEF, name, null, TokenType.END.mask());
     }
 
-    return new BlockStmt(statements);
-  }
-
-  /** Parses a `def` statement. */
-  private DefStmt parseDefStatement() {
-    final var name = reader.consumeExpected(TokenType.IDENTIFIER, "Expected method name.");
-    final var block = parseBlock(TokenType.END);
+    if (reader.advanceIfMatch(TokenType.IF)) {
+      return new OpenBlock(TokenType.IF, null, parseExpression(), IF_BLOCK_END);
+    }
 
-    reader.consumeExpected(TokenType.END, "Expected 'end' after method block.");
+    if (reader.advanceIfMatch(TokenType.WHILE)) {
+      return new OpenBlock(TokenType.WHILE, null, parseExpression(), TokenType.END.mask());
+    }
 
-    return new DefStmt(name, block);
+    return null;
   }
 
-  /** Parses a `if` statement. */
-  private IfStmt parseIfStatement() {
-    final var condition = parseExpression();
-    final var thenBlock = parseBlock(TokenType.ELSE, TokenType.END);
-    Stmt elseBlock = null;
+  /** Checks whether the current token ends the given block. */
+  private boolean isBlockEnd(OpenBlock block) {
+    return reader.isAtEnd() || reader.check(block.endTokens);
+  }
 
-    if(reader.advanceIfMatch(TokenType.ELSE)) {
-      elseBlock = parseBlock(TokenType.END);
-      reader.consumeExpected(TokenType.END, "Expected 'end' after 'else' block.");
-    } else {
-      reader.consumeExpected(TokenType.END, "Expected 'end' after 'if' block.");
+  /**
+   * Closes the innermost open block once its end token appears.
+   *
+   * @param openBlocks The stack of open blocks.
+   * @return The completed statement or {@code null} if the block continues with an `else` block.
+   */
+  private Stmt closeBlock(List<OpenBlock> openBlocks) {
+    final var block = openBlocks.get(openBlocks.size() - 1);
+    final var statements = new BlockStmt(block.statements);
+
+    if (block.type == TokenType.IF && block.thenBlock == null
+        && reader.advanceIfMatch(TokenType.ELSE)) {
+      block.thenBlock = statements;
+      block.statements = new ArrayList<>();
+      block.endTokens = TokenType.END.mask();
+      return null;
     }
 
-    return new IfStmt(condition, thenBlock, elseBlock);
-  }
-
-  /** Parses a `while` statement. */
-  private WhileStmt parseWhileStatement() {
-    final var condition = parseExpression();
-    final var block = parseBlock(TokenType.END);
+    final Stmt stmt = switch (block.type) {
+      case DEF -> {
+        reader.consumeExpected(TokenType.END, "Expected 'end' after method block.");
+        yield new DefStmt(block.name, statements);
+      }
+      case WHILE -> {
+        reader.consumeExpected(TokenType.END, "Expected 'end' after 'while' block.");
+        yield new WhileStmt(block.condition, statements);
+      }
+      default -> {
+        if (block.thenBlock == null) {
+          reader.consumeExpected(TokenType.END, "Expected 'end' after 'if' block.");
+          yield new IfStmt(block.condition, statements, null);
+        }
+
+        reader.consumeExpected(TokenType.END, "Expected 'end' after 'else' block.");
+        yield new IfStmt(block.condition, block.thenBlock, statements);
+      }
+    };
 
-    reader.consumeExpected(TokenType.END, "Expected 'end' after 'while' block.");
+    openBlocks.remove(openBlocks.size() - 1);
 
-    return new WhileStmt(condition, block);
+    return stmt;
   }
 
   /** Parses a statement which is either an assignment or an expression. */
   private Stmt parseAssignmentOrExpressionStatement() {
-    final var expr = parseExpression();
+    final var root = parseExpressionNode();
+    final var expr = createExpr(root);
 
     if(reader.advanceIfMatch(TokenType.EQUAL)) {
       final var equalsToken = reader.previous();
+      final var name =
+          arena.getKind(root) == ExprArena.Kind.VARIABLE ? arena.getToken(root) : null;
       final var value = parseExpression();
 
-      if(expr instanceof Expr.VariableExpr varExrp) {
-        return new AssignStmt(varExrp.getName(), value);
+      if(name != null) {
+        return new AssignStmt(name, value);
       }
 
       errorHandler.report(equalsToken, "Invalid assignment target.");
@@ -167,97 +331,162 @@ public class Parser {
 
   /** Parses a single expression. */
   private Expr parseExpression() {
-    return parseEquality();
+    return createExpr(parseExpressionNode());
   }
 
-  /** Parses a single equality-expression. */
-  private Expr parseEquality() {
-    var expr = parseComparison();
-
-    while (reader.advanceIfMatch(TokenType.BANG_EQUAL, TokenType.EQUAL_EQUAL)) {
-      final var operator = reader.previous();
-      final var right = parseComparison();
-      expr = new BinaryExpr(expr, operator, right);
-    }
-
-    return expr;
+  /**
+   * Creates the expression for a root node. Nodes of the scratch arena are only valid until the
+   * next expression is parsed.
+   */
+  private Expr createExpr(int root) {
+    return buildTrees ? arena.toExpr(root) : new ArenaExpr(arena, root);
   }
 
-  private Expr parseComparison() {
-    var expr = parseTerm();
+  /**
+   * Parses a single expression via precedence climbing.
+   *
+   * <p>Pending operators and operands are kept on explicit stacks instead of the call stack, so
+   * the nesting depth of parentheses and unary operators is only limited by the heap. Each operator
+   * is looked up once in {@link #PRECEDENCE}.
+   *
+   * @return The index of the root node in the arena.
+   */
+  private int parseExpressionNode() {
+    operatorCount = 0;
+    operandCount = 0;
 
-    while (reader.advanceIfMatch(
-        TokenType.GREATER, TokenType.GREATER_EQUAL, TokenType.LESS, TokenType.LESS_EQUAL)) {
-      final var operator = reader.previous();
-      final var right = parseTerm();
-      expr = new BinaryExpr(expr, operator, right);
+    if (buildTrees) {
+      arena.clear();
     }
 
-    return expr;
+    var openGroups = 0;
+
+    while (true) {
+      // Prefix operators and opening parentheses precede each operand.
+      while (true) {
+        if (reader.advanceIfMatch(UNARY_OPERATORS)) {
+          pushOperator(reader.addPreviousToken(arena), UNARY_PRECEDENCE);
+        } else if (reader.advanceIfMatch(TokenType.LEFT_PAREN)) {
+          pushOperator(ExprArena.NONE, GROUP_PRECEDENCE);
+          openGroups++;
+        } else {
+          break;
+        }
+      }
+
+      pushOperand(parsePrimary());
+
+      // Closing parentheses and a binary operator follow each operand.
+      while (true) {
+        final var precedence = PRECEDENCE[reader.peekType().ordinal()];
+
+        if (precedence > 0) {
+          // All binary operators are left-associative.
+          reduceOperators(precedence);
+          reader.advance();
+          pushOperator(reader.addPreviousToken(arena), precedence);
+          break;
+        }
+
+        if (openGroups > 0) {
+          reader.consumeExpected(TokenType.RIGHT_PAREN, "Expected ')' after expression.");
+          reduceOperators(GROUP_PRECEDENCE + 1);
+          operatorCount--;
+          openGroups--;
+          pushOperand(arena.addGrouping(popOperand()));
+          continue;
+        }
+
+        reduceOperators(GROUP_PRECEDENCE + 1);
+        return popOperand();
+      }
+    }
   }
 
-  private Expr parseTerm() {
-    var expr = parseFactor();
+  /**
+   * Combines pending operators with their operands.
+   *
+   * @param minPrecedence Only operators with at least this precedence are combined.
+   */
+  private void reduceOperators(int minPrecedence) {
+    while (operatorCount > 0 && operatorPrecedences[operatorCount - 1] >= minPrecedence) {
+      final var precedence = operatorPrecedences[operatorCount - 1];
+      final var operator = operators[--operatorCount];
 
-    while (reader.advanceIfMatch(TokenType.MINUS, TokenType.PLUS)) {
-      final var operator = reader.previous();
-      final var right = parseFactor();
-      expr = new BinaryExpr(expr, operator, right);
-    }
+      final var right = popOperand();
 
-    return expr;
+      if (precedence == UNARY_PRECEDENCE) {
+        pushOperand(arena.addUnary(operator, right));
+      } else {
+        pushOperand(arena.addBinary(popOperand(), operator, right));
+      }
+    }
   }
 
-  private Expr parseFactor() {
-    Expr expr = parseUnary();
-
-    while (reader.advanceIfMatch(TokenType.SLASH, TokenType.STAR)) {
-      final var operator = reader.previous();
-      final var right = parseUnary();
-      expr = new BinaryExpr(expr, operator, right);
+  private void pushOperator(int operator, int precedence) {
+    if (operatorCount == operators.length) {
+      operators = Arrays.copyOf(operators, operatorCount * 2);
+      operatorPrecedences = Arrays.copyOf(operatorPrecedences, operatorCount * 2);
     }
 
-    return expr;
+    operators[operatorCount] = operator;
+    operatorPrecedences[operatorCount] = precedence;
+    operatorCount++;
   }
 
-  private Expr parseUnary() {
-    if (reader.advanceIfMatch(TokenType.BANG, TokenType.MINUS)) {
-      final var operator = reader.previous();
-      final var right = parseUnary();
-      return new UnaryExpr(operator, right);
+  private void pushOperand(int operand) {
+    if (operandCount == operands.length) {
+      operands = Arrays.copyOf(operands, operandCount * 2);
     }
 
-    return parsePrimary();
+    operands[operandCount++] = operand;
   }
 
-  /** Parses a single primary-expression. */
-  private Expr parsePrimary() {
+  private int popOperand() {
+    return operands[--operandCount];
+  }
+
+  /**
+   * Parses a single primary-expression without parentheses.
+   *
+   * @return The index of the added node in the arena.
+   */
+  private int parsePrimary() {
     if (reader.advanceIfMatch(TokenType.FALSE)) {
-      return new LiteralExpr(reader.previous(), false);
+      return arena.addLiteral(reader.addPreviousToken(arena), false);
     }
 
     if (reader.advanceIfMatch(TokenType.TRUE)) {
-      return new LiteralExpr(reader.previous(), true);
+      return arena.addLiteral(reader.addPreviousToken(arena), true);
     }
 
     if (reader.advanceIfMatch(TokenType.NULL)) {
-      return new LiteralExpr(reader.previous(), null);
-    }
-
-    if (reader.advanceIfMatch(TokenType.NUMBER, TokenType.STRING)) {
-      return new LiteralExpr(reader.previous(), reader.previous().literal());
+      return arena.addLiteral(reader.addPreviousToken(arena), null);
     }
 
-    if (reader.advanceIfMatch(TokenType.LEFT_PAREN)) {
-      final var expr = parseExpression();
-      reader.consumeExpected(TokenType.RIGHT_PAREN, "Expected ')' after expression.");
-      return new GroupingExpr(expr);
+    if (reader.advanceIfMatch(LITERALS)) {
+      return arena.addLiteral(reader.addPreviousToken(arena), reader.previousLiteral());
     }
 
     if (reader.advanceIfMatch(TokenType.IDENTIFIER)) {
-      return new VariableExpr(reader.previous());
+      return arena.addVariable(reader.addPreviousToken(arena));
     }
 
     throw new ParserException(reader.peek(), "Expected expression.");
   }
+
+  /** Creates the table of binary operator precedences from {@link #BINARY_OPERATORS}. */
+  private static int[] createPrecedenceTable() {
+    final var table = new int[TokenType.values().length];
+
+    for (final var type : TokenType.values()) {
+      for (var level = 0; level < BINARY_OPERATORS.length; level++) {
+        if ((BINARY_OPERATORS[level] & type.mask()) != 0) {
+          table[type.ordinal()] = level + 1;
+        }
+      }
+    }
+
+    return table;
+  }
 }
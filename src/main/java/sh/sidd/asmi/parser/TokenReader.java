@@ -1,30 +1,62 @@
 package sh.sidd.asmi.parser;
 
 import java.util.List;
+import sh.sidd.asmi.data.ExprArena;
 import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenStream;
 import sh.sidd.asmi.data.TokenType;
 
-/** Reader class to retrieve tokens from a list of tokens. */
+/**
+ * Reader class to retrieve tokens from a {@link TokenStream}.
+ *
+ * <p>Tokens are pulled from the stream on demand. Only the previous token and a small lookahead are
+ * kept in a ring buffer, so the memory used for tokens does not grow with the size of the source.
+ * The ring buffer stores the fields of the tokens in primitive arrays. {@link Token} objects are
+ * only created when a token is requested, e.g. for names in the syntax tree or for errors.
+ */
 public class TokenReader {
-  private final List<Token> tokens;
+  private static final int BUFFER_SIZE = 4;
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+  private final TokenStream stream;
+  private final TokenType[] types = new TokenType[BUFFER_SIZE];
+  private final CharSequence[] sources = new CharSequence[BUFFER_SIZE];
+  private final int[] starts = new int[BUFFER_SIZE];
+  private final int[] lengths = new int[BUFFER_SIZE];
+  private final int[] lines = new int[BUFFER_SIZE];
+  private final int[] symbols = new int[BUFFER_SIZE];
+  private final Object[] literals = new Object[BUFFER_SIZE];
   private int currentPos;
+  private int fetchedCount;
 
   public TokenReader(List<Token> tokens) {
-    this.tokens = tokens;
+    this(TokenStream.of(tokens));
+  }
+
+  public TokenReader(TokenStream stream) {
+    this.stream = stream;
   }
 
   /**
    * Reads a single token and advances the current position if the token type matches.
    *
-   * @param types The expected token types to match.
+   * @param type The expected token type to match.
    * @return {@code true} If the token matched and the position was advanced.
    */
-  public boolean advanceIfMatch(TokenType... types) {
-    for (final var type : types) {
-      if (check(type)) {
-        readAndAdvance();
-        return true;
-      }
+  public boolean advanceIfMatch(TokenType type) {
+    return advanceIfMatch(type.mask());
+  }
+
+  /**
+   * Reads a single token and advances the current position if the token type is in the given mask.
+   *
+   * @param mask The expected token types to match, see {@link TokenType#maskOf}.
+   * @return {@code true} If the token matched and the position was advanced.
+   */
+  public boolean advanceIfMatch(long mask) {
+    if (check(mask)) {
+      advance();
+      return true;
     }
 
     return false;
@@ -33,47 +65,117 @@ public class TokenReader {
   /**
    * Checks if the token at the current position has the given type.
    *
-   * @param types The token types to check for.
+   * @param type The token type to check for.
    * @return {@code true} If the current token matched.
    */
-  public boolean check(TokenType... types) {
+  public boolean check(TokenType type) {
+    return check(type.mask());
+  }
+
+  /**
+   * Checks if the token at the current position has one of the types in the given mask.
+   *
+   * @param mask The token types to check for, see {@link TokenType#maskOf}.
+   * @return {@code true} If the current token matched.
+   */
+  public boolean check(long mask) {
     if (isAtEnd()) {
       return false;
     }
 
-    final var peekType = peek().tokenType();
-
-    for (final var type : types) {
-      if (peekType == type) {
-        return true;
-      }
-    }
-
-    return false;
+    return (peekType().mask() & mask) != 0;
   }
 
   /** Checks whether the current position is at the end of the token stream. */
   public boolean isAtEnd() {
-    return peek().tokenType() == TokenType.EOF;
+    return peekType() == TokenType.EOF;
   }
 
-  /** Reads a single token and advances the current position by one token. */
-  public Token readAndAdvance() {
+  /** Advances the current position by one token. */
+  public void advance() {
     if (!isAtEnd()) {
       currentPos++;
     }
+  }
+
+  /** Reads a single token and advances the current position by one token. */
+  public Token readAndAdvance() {
+    advance();
 
     return previous();
   }
 
+  /** Returns the type of the current token without advancing the current position. */
+  public TokenType peekType() {
+    return types[fetch(currentPos)];
+  }
+
   /** Reads the current token without advancing the current position. */
   public Token peek() {
-    return tokens.get(currentPos);
+    return createToken(fetch(currentPos));
   }
 
   /** Reads the previous token without advancing the current position. */
   public Token previous() {
-    return tokens.get(currentPos - 1);
+    return createToken(fetch(currentPos - 1));
+  }
+
+  /**
+   * Adds the previous token to the token table of an arena without creating a {@link Token}.
+   *
+   * @param arena The arena to add the token to.
+   * @return The index of the token in the arena.
+   */
+  public int addPreviousToken(ExprArena arena) {
+    final var slot = fetch(currentPos - 1);
+
+    return arena.addToken(types[slot], sources[slot], starts[slot], lengths[slot], lines[slot],
+        symbols[slot]);
+  }
+
+  /** Returns the literal of the previous token or {@code null} if it has none. */
+  public Object previousLiteral() {
+    return literals[fetch(currentPos - 1)];
+  }
+
+  /** Returns the number of tokens which were consumed so far. */
+  public int getPosition() {
+    return currentPos;
+  }
+
+  /**
+   * Returns the slot of the token at the given position and pulls tokens from the stream as
+   * required.
+   *
+   * @param pos The absolute position of the token.
+   * @return The index of the token in the ring buffer.
+   */
+  private int fetch(int pos) {
+    if (pos < 0 || pos < fetchedCount - BUFFER_SIZE) {
+      throw new IndexOutOfBoundsException(
+          String.format("Token at %d is no longer buffered", pos));
+    }
+
+    while (pos >= fetchedCount) {
+      final var slot = fetchedCount & BUFFER_MASK;
+
+      stream.advance();
+      types[slot] = stream.tokenType();
+      sources[slot] = stream.source();
+      starts[slot] = stream.start();
+      lengths[slot] = stream.length();
+      lines[slot] = stream.line();
+      symbols[slot] = stream.symbol();
+      literals[slot] = stream.literal();
+      fetchedCount++;
+    }
+
+    return pos & BUFFER_MASK;
+  }
+
+  private Token createToken(int slot) {
+    return new Token(types[slot], sources[slot], starts[slot], lengths[slot], literals[slot],
+        lines[slot], symbols[slot]);
   }
 
   /**
@@ -81,13 +183,10 @@ public class TokenReader {
    *
    * @param expected The expected token type.
    * @param message The error message if the type did not match.
-   * @return The consumed token.
    * @throws ParserException If the token type did not match.
    */
-  public Token consumeExpected(TokenType expected, String message) {
-    if (check(expected)) {
-      return readAndAdvance();
-    } else {
+  public void consumeExpected(TokenType expected, String message) {
+    if (!advanceIfMatch(expected)) {
       throw new ParserException(peek(), message);
     }
   }
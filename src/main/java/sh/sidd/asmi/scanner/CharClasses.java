@@ -0,0 +1,61 @@
+package sh.sidd.asmi.scanner;
+
+/**
+ * Lookup table for the classes of ASCII characters used by the {@link Scanner}.
+ *
+ * <p>Classes are bit flags, so a single table lookup checks a character against several classes.
+ * Characters outside of ASCII do not belong to any class.
+ */
+public final class CharClasses {
+  /** Whitespace which does not start a new line, i.e. [ \r\t]. */
+  public static final int WHITESPACE = 1;
+
+  /** Decimal digits, i.e. [0-9]. */
+  public static final int DIGIT = 1 << 1;
+
+  /** Characters which may start an identifier, i.e. [a-zA-Z_]. */
+  public static final int ALPHA = 1 << 2;
+
+  /** Hexadecimal digits, i.e. [0-9a-fA-F]. */
+  public static final int HEX_DIGIT = 1 << 3;
+
+  /** Characters which may continue an identifier, i.e. [a-zA-Z0-9_]. */
+  public static final int ALPHA_NUMERIC = ALPHA | DIGIT;
+
+  private static final byte[] TABLE = createTable();
+
+  private CharClasses() {}
+
+  /**
+   * Checks whether the given character belongs to any of the given classes.
+   *
+   * @param c The character to check.
+   * @param classes The classes to check for, combined via bitwise or.
+   * @return {@code true} If the character belongs to one of the classes.
+   */
+  public static boolean matches(char c, int classes) {
+    return c < TABLE.length && (TABLE[c] & classes) != 0;
+  }
+
+  private static byte[] createTable() {
+    final var table = new byte[128];
+
+    table[' '] = WHITESPACE;
+    table['\r'] = WHITESPACE;
+    table['\t'] = WHITESPACE;
+    table['_'] = ALPHA;
+
+    for (char c = '0'; c <= '9'; c++) {
+      table[c] = DIGIT | HEX_DIGIT;
+    }
+
+    for (char c = 'a'; c <= 'z'; c++) {
+      final var hexDigit = c <= 'f' ? HEX_DIGIT : 0;
+
+      table[c] = (byte) (ALPHA | hexDigit);
+      table[Character.toUpperCase(c)] = (byte) (ALPHA | hexDigit);
+    }
+
+    return table;
+  }
+}
@@ -0,0 +1,78 @@
+package sh.sidd.asmi.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import sh.sidd.asmi.data.TokenType;
+
+/**
+ * Recognizes keywords directly on the characters of a source.
+ *
+ * <p>Keyword tokens are grouped by their first character once, so classifying an identifier only
+ * compares it against the few keywords sharing its first character and length. No substring is
+ * created and nothing is hashed.
+ */
+public final class Keywords {
+  private static final TokenType[][] KEYWORDS_BY_FIRST_CHAR = createKeywordTable();
+
+  private Keywords() {}
+
+  /**
+   * Finds the keyword token for the given range of the source.
+   *
+   * @param source The source containing the identifier.
+   * @param start The start position of the identifier, inclusive.
+   * @param end The end position of the identifier, exclusive.
+   * @return The keyword token or {@code null} if the identifier is not a keyword.
+   */
+  public static TokenType find(CharSequence source, int start, int end) {
+    final var first = source.charAt(start);
+
+    if (first >= KEYWORDS_BY_FIRST_CHAR.length) {
+      return null;
+    }
+
+    for (final var tokenType : KEYWORDS_BY_FIRST_CHAR[first]) {
+      if (matches(tokenType.getKeyword(), source, start, end)) {
+        return tokenType;
+      }
+    }
+
+    return null;
+  }
+
+  private static boolean matches(String keyword, CharSequence source, int start, int end) {
+    if (keyword.length() != end - start) {
+      return false;
+    }
+
+    for (int i = 1; i < keyword.length(); i++) {
+      if (keyword.charAt(i) != source.charAt(start + i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static TokenType[][] createKeywordTable() {
+    final var table = new ArrayList<List<TokenType>>();
+
+    for (final var tokenType : TokenType.values()) {
+      if (!tokenType.isKeyword()) {
+        continue;
+      }
+
+      final var first = tokenType.getKeyword().charAt(0);
+
+      while (table.size() <= first) {
+        table.add(new ArrayList<>());
+      }
+
+      table.get(first).add(tokenType);
+    }
+
+    return table.stream()
+        .map(keywords -> keywords.toArray(TokenType[]::new))
+        .toArray(TokenType[][]::new);
+  }
+}
@@ -0,0 +1,222 @@
+package sh.sidd.asmi.scanner;
+
+import java.util.Arrays;
+
+/**
+ * Index of the start positions of all lines of a source.
+ *
+ * <p>The {@link Scanner} records line starts while it passes newlines, so the index is usually
+ * complete once scanning finished. Parts of the source which were not scanned yet are indexed on
+ * demand. Line texts are only sliced from the source when they are requested.
+ *
+ * <p>The line starts are stored in a gap buffer, whose gap is kept at the last replaced range.
+ * Line starts behind the gap are stored relative to the end of the source, so a replacement only
+ * moves the line starts between the previous and the current replacement.
+ */
+public class LineIndex {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private CharSequence source;
+  private int[] lineStarts = new int[INITIAL_CAPACITY];
+  private int lineCount = 1;
+  private int gapStart = 1;
+  private int gapEnd = INITIAL_CAPACITY;
+  private int indexedPos;
+
+  public LineIndex(CharSequence source) {
+    this.source = source;
+  }
+
+  /**
+   * Records the start of a new line.
+   *
+   * <p>Positions which were already indexed are ignored.
+   *
+   * @param pos The position directly after a newline character.
+   */
+  public void addLineStart(int pos) {
+    if (pos <= indexedPos) {
+      return;
+    }
+
+    moveGap(lineCount);
+    insertAtGap(pos);
+    lineCount++;
+    indexedPos = pos;
+  }
+
+  /**
+   * Updates the index after a range of the source was replaced.
+   *
+   * <p>Only the line starts inside the replaced range are updated. The gap is moved to the
+   * replaced range first, so all following line starts move along with the end of the source.
+   *
+   * @param newSource The source after the replacement.
+   * @param offset The start of the replaced range.
+   * @param oldLength The length of the replaced range in the previous source.
+   * @param newLength The length of the replacement in the new source.
+   */
+  public void replace(CharSequence newSource, int offset, int oldLength, int newLength) {
+    final var oldEnd = offset + oldLength;
+
+    // All line starts in the replaced range have to be known to remove them.
+    indexUntil(oldEnd);
+
+    final var first = findLineAfter(offset);
+    final var last = findLineAfter(oldEnd);
+
+    // Drop the line starts of the replaced range, which directly follow the gap afterwards.
+    moveGap(first);
+    gapEnd += last - first;
+    lineCount -= last - first;
+    indexedPos += newLength - oldLength;
+    source = newSource;
+
+    for (int i = offset; i < offset + newLength; i++) {
+      if (newSource.charAt(i) == '\n') {
+        insertAtGap(i + 1);
+        lineCount++;
+      }
+    }
+  }
+
+  /** Returns the number of lines in the source. */
+  public int getLineCount() {
+    indexUntil(source.length());
+    return lineCount;
+  }
+
+  /**
+   * Returns the text of the given line without its newline character.
+   *
+   * @param line The 0-indexed line.
+   * @return The text of the line.
+   */
+  public String getLine(int line) {
+    final var start = getLineStart(line);
+    final var end = line + 1 < lineCount ? getStart(line + 1) - 1 : source.length();
+
+    return source.subSequence(start, end).toString();
+  }
+
+  /**
+   * Returns the start position of the given line.
+   *
+   * @param line The 0-indexed line.
+   * @return The position of the first character of the line.
+   */
+  public int getLineStart(int line) {
+    while (line >= lineCount && indexedPos < source.length()) {
+      indexNextLine();
+    }
+
+    if (line < 0 || line >= lineCount) {
+      throw new ScannerException(String.format("Cannot retrieve line at %d", line));
+    }
+
+    // Make sure the end of the line is known as well.
+    if (line + 1 == lineCount) {
+      indexNextLine();
+    }
+
+    return getStart(line);
+  }
+
+  /**
+   * Returns the 0-indexed line of the given position.
+   *
+   * @param pos The position in the source.
+   * @return The line containing the position.
+   */
+  public int getLineOf(int pos) {
+    indexUntil(pos);
+
+    return findLineAfter(pos) - 1;
+  }
+
+  /**
+   * Returns the 0-indexed column of the given position.
+   *
+   * @param pos The position in the source.
+   * @return The column of the position within its line.
+   */
+  public int getColumnOf(int pos) {
+    return pos - getStart(getLineOf(pos));
+  }
+
+  /** Returns the absolute start position of an indexed line. */
+  private int getStart(int line) {
+    if (line < gapStart) {
+      return lineStarts[line];
+    }
+
+    return lineStarts[line + gapEnd - gapStart] + source.length();
+  }
+
+  /** Returns the first indexed line which starts after the given position. */
+  private int findLineAfter(int pos) {
+    var low = 0;
+    var high = lineCount;
+
+    while (low < high) {
+      final var mid = (low + high) >>> 1;
+
+      if (getStart(mid) > pos) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Moves the gap in front of the given line, converting the line starts of all moved lines.
+   *
+   * @param line The line which should directly follow the gap.
+   */
+  private void moveGap(int line) {
+    while (gapStart > line) {
+      lineStarts[--gapEnd] = lineStarts[--gapStart] - source.length();
+    }
+
+    while (gapStart < line) {
+      lineStarts[gapStart++] = lineStarts[gapEnd++] + source.length();
+    }
+  }
+
+  /** Inserts an absolute line start at the gap. */
+  private void insertAtGap(int pos) {
+    if (gapStart == gapEnd) {
+      final var tailLength = lineStarts.length - gapEnd;
+      final var grown = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+
+      System.arraycopy(lineStarts, gapEnd, grown, grown.length - tailLength, tailLength);
+
+      gapEnd = grown.length - tailLength;
+      lineStarts = grown;
+    }
+
+    lineStarts[gapStart++] = pos;
+  }
+
+  /** Indexes all lines starting before or at the given position. */
+  private void indexUntil(int pos) {
+    while (indexedPos < pos && indexedPos < source.length()) {
+      indexNextLine();
+    }
+  }
+
+  /** Indexes the next line start after the already indexed part of the source. */
+  private void indexNextLine() {
+    for (int i = indexedPos; i < source.length(); i++) {
+      if (source.charAt(i) == '\n') {
+        addLineStart(i + 1);
+        return;
+      }
+    }
+
+    indexedPos = source.length();
+  }
+}
@@ -0,0 +1,105 @@
+package sh.sidd.asmi.scanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source backed by a memory-mapped file.
+ *
+ * <p>The file is never copied onto the heap as a whole. {@link #charAt} exposes the raw bytes of the
+ * file, which is sufficient for the {@link Scanner} as all structural characters of the Asmi
+ * language are ASCII. Multibyte UTF-8 sequences only appear inside string literals and comments and
+ * are decoded once a part of the source is converted via {@link #toString()}.
+ *
+ * <p>All positions are byte offsets into the file.
+ */
+public class MappedSource implements CharSequence {
+  private final ByteBuffer buffer;
+  private final int offset;
+  private final int length;
+
+  private MappedSource(ByteBuffer buffer, int offset, int length) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /**
+   * Maps the given file into memory.
+   *
+   * @param path The path of the file to map.
+   * @return The source of the mapped file.
+   * @throws IOException If the file could not be mapped.
+   */
+  public static MappedSource open(Path path) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final var size = channel.size();
+
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Source file is too large to be mapped: " + path);
+      }
+
+      final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+      return new MappedSource(buffer, 0, (int) size);
+    }
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException(index);
+    }
+
+    return (char) (buffer.get(offset + index) & 0xFF);
+  }
+
+  /**
+   * Returns the number of bytes of the UTF-8 sequence which starts at the given index.
+   *
+   * @param index The index of the first byte of the sequence.
+   * @return The length of the sequence, 1 for ASCII characters and invalid lead bytes.
+   */
+  public int getCodePointLength(int index) {
+    final var lead = charAt(index);
+
+    if (lead >= 0xF8) {
+      return 1;
+    } else if (lead >= 0xF0) {
+      return 4;
+    } else if (lead >= 0xE0) {
+      return 3;
+    } else if (lead >= 0xC0) {
+      return 2;
+    }
+
+    return 1;
+  }
+
+  @Override
+  public MappedSource subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException(
+          String.format("Invalid range [%d, %d) for length %d", start, end, length));
+    }
+
+    return new MappedSource(buffer, offset + start, end - start);
+  }
+
+  @Override
+  public String toString() {
+    final var bytes = new byte[length];
+    buffer.get(offset, bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,85 @@
+package sh.sidd.asmi.scanner;
+
+/**
+ * Conversions of scanned digits into floating point literals.
+ *
+ * <p>Decimal literals whose digits and scale can be represented exactly are converted with a
+ * single division, which rounds correctly as both operands are exact (Clinger's fast path). All
+ * other literals fall back to the JDK parsers.
+ */
+final class NumberLiterals {
+  /** The largest number of significant digits which always fit exactly into a double. */
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+  /** The largest mantissa which fits exactly into a float. */
+  private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+
+  private static final double[] DOUBLE_POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final float[] FLOAT_POWERS_OF_TEN = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+
+  private NumberLiterals() {}
+
+  /**
+   * Converts a decimal literal to a double.
+   *
+   * @param mantissa The digits of the literal without the decimal point.
+   * @param significantDigits The number of digits in the mantissa, or -1 if it overflowed.
+   * @param fractionDigits The number of digits after the decimal point.
+   * @param source The source containing the literal.
+   * @param start The start of the literal in the source.
+   * @param end The end of the literal in the source, excluding any suffix.
+   * @return The value of the literal.
+   */
+  static double toDouble(long mantissa, int significantDigits, int fractionDigits,
+      CharSequence source, int start, int end) {
+    if (significantDigits >= 0
+        && significantDigits <= MAX_EXACT_DOUBLE_DIGITS
+        && fractionDigits < DOUBLE_POWERS_OF_TEN.length) {
+      return mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+    }
+
+    return Double.parseDouble(withoutUnderscores(source, start, end));
+  }
+
+  /**
+   * Converts a decimal literal to a float.
+   *
+   * @param mantissa The digits of the literal without the decimal point.
+   * @param significantDigits The number of digits in the mantissa, or -1 if it overflowed.
+   * @param fractionDigits The number of digits after the decimal point.
+   * @param source The source containing the literal.
+   * @param start The start of the literal in the source.
+   * @param end The end of the literal in the source, excluding any suffix.
+   * @return The value of the literal.
+   */
+  static float toFloat(long mantissa, int significantDigits, int fractionDigits,
+      CharSequence source, int start, int end) {
+    if (significantDigits >= 0
+        && mantissa <= MAX_EXACT_FLOAT_MANTISSA
+        && fractionDigits < FLOAT_POWERS_OF_TEN.length) {
+      return mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+    }
+
+    return Float.parseFloat(withoutUnderscores(source, start, end));
+  }
+
+  private static String withoutUnderscores(CharSequence source, int start, int end) {
+    final var builder = new StringBuilder(end - start);
+
+    for (var i = start; i < end; i++) {
+      final var c = source.charAt(i);
+
+      if (c != '_') {
+        builder.append(c);
+      }
+    }
+
+    return builder.toString();
+  }
+}
@@ -0,0 +1,147 @@
+package sh.sidd.asmi.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import lombok.Getter;
+import sh.sidd.asmi.ErrorHandler;
+import sh.sidd.asmi.data.SymbolTable;
+
+/**
+ * Scans large sources by splitting them into chunks which are scanned in parallel.
+ *
+ * <p>A cheap sequential pre-pass only tracks whether the current position is inside a string
+ * literal or comment. Newlines outside string literals are safe chunk boundaries, as no token spans
+ * across them and they always end comments. The pre-pass also fills the {@link LineIndex}, so each
+ * chunk knows its starting line.
+ *
+ * <p>Each chunk is scanned on a {@link ForkJoinPool} into its own {@link TokenBuffer} with its own
+ * {@link SymbolTable}. The results are stitched together in source order, which results in exactly
+ * the same tokens, identifier ids and errors as the sequential {@link Scanner}.
+ */
+public class ParallelScanner implements SourceRetriever {
+  private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+  private final CharSequence source;
+  private final ErrorHandler errorHandler;
+  @Getter private final SymbolTable symbolTable;
+  @Getter private final LineIndex lineIndex;
+  private final ForkJoinPool pool;
+  private final int chunkSize;
+
+  private record Chunk(int start, int end, int line) {}
+
+  private record ChunkResult(TokenBuffer tokens, SymbolTable symbolTable,
+                             ErrorHandler errorHandler) {}
+
+  public ParallelScanner(CharSequence source, ErrorHandler errorHandler) {
+    this(source, errorHandler, new SymbolTable(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a new parallel scanner.
+   *
+   * @param source The source to scan.
+   * @param errorHandler The handler to report errors to.
+   * @param symbolTable The table to intern identifiers in.
+   * @param pool The pool to scan the chunks on.
+   * @param chunkSize The minimum number of characters per chunk.
+   */
+  public ParallelScanner(CharSequence source, ErrorHandler errorHandler, SymbolTable symbolTable,
+      ForkJoinPool pool, int chunkSize) {
+    this.source = source;
+    this.errorHandler = errorHandler;
+    this.symbolTable = symbolTable;
+    this.lineIndex = new LineIndex(source);
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Scans all tokens of the source into a packed {@link TokenBuffer}.
+   *
+   * <p>The returned buffer ends with an {@link sh.sidd.asmi.data.TokenType#EOF} token.
+   */
+  public TokenBuffer scanTokenBuffer() {
+    final var chunks = findChunks();
+    final var tasks = new ArrayList<ForkJoinTask<ChunkResult>>(chunks.size());
+
+    for (final var chunk : chunks) {
+      tasks.add(pool.submit(() -> scanChunk(chunk)));
+    }
+
+    final var tokens = new TokenBuffer(source);
+
+    for (int i = 0; i < tasks.size(); i++) {
+      final var result = tasks.get(i).join();
+      final var chunkTokens = result.tokens();
+      final var chunkSymbols = result.symbolTable();
+      final var symbolMapping = new int[chunkSymbols.size()];
+
+      for (int symbol = 0; symbol < symbolMapping.length; symbol++) {
+        symbolMapping[symbol] = symbolTable.intern(chunkSymbols.getName(symbol));
+      }
+
+      // Only the last chunk keeps its EOF token.
+      final var isLastChunk = i == tasks.size() - 1;
+      tokens.append(chunkTokens, chunkTokens.size() - (isLastChunk ? 0 : 1), symbolMapping);
+      errorHandler.merge(result.errorHandler());
+    }
+
+    return tokens;
+  }
+
+  @Override
+  public String getLine(int line) {
+    return lineIndex.getLine(line);
+  }
+
+  /** Splits the source at newlines outside of string literals and records all line starts. */
+  private List<Chunk> findChunks() {
+    final var chunks = new ArrayList<Chunk>();
+    var inString = false;
+    var inComment = false;
+    var chunkStart = 0;
+    var chunkLine = 0;
+    var line = 0;
+
+    for (int i = 0; i < source.length(); i++) {
+      final var c = source.charAt(i);
+
+      if (inString) {
+        inString = c != '"';
+      } else if (inComment) {
+        inComment = c != '\n';
+      } else if (c == '"') {
+        inString = true;
+      } else if (c == '#') {
+        inComment = true;
+      }
+
+      if (c == '\n') {
+        line++;
+        lineIndex.addLineStart(i + 1);
+
+        if (!inString && i + 1 - chunkStart >= chunkSize) {
+          chunks.add(new Chunk(chunkStart, i + 1, chunkLine));
+          chunkStart = i + 1;
+          chunkLine = line;
+        }
+      }
+    }
+
+    chunks.add(new Chunk(chunkStart, source.length(), chunkLine));
+
+    return chunks;
+  }
+
+  private ChunkResult scanChunk(Chunk chunk) {
+    final var chunkErrorHandler = ErrorHandler.collecting();
+    final var chunkSymbols = new SymbolTable();
+    final var scanner = new Scanner(source, chunkErrorHandler, chunkSymbols, chunk.start(),
+        chunk.end(), chunk.line());
+
+    return new ChunkResult(scanner.scanTokenBuffer(), chunkSymbols, chunkErrorHandler);
+  }
+}
@@ -0,0 +1,231 @@
+package sh.sidd.asmi.scanner;
+
+import java.util.Objects;
+
+/**
+ * Immutable source which can be edited without copying the whole text.
+ *
+ * <p>The text is stored in chunks at the leaves of a balanced binary tree. An edit creates a new
+ * rope which shares all untouched subtrees with the previous one, so it only takes logarithmic
+ * time in the length of the text. Tokens keep referencing the version they were scanned from, just
+ * like tokens scanned from a {@link String}.
+ */
+public final class Rope implements CharSequence {
+  private static final int CHUNK_SIZE = 1024;
+  private static final Rope EMPTY = new Rope("");
+
+  private final String chunk;
+  private final Rope left;
+  private final Rope right;
+  private final int length;
+  private final int height;
+
+  private Rope(String chunk) {
+    this.chunk = chunk;
+    this.left = null;
+    this.right = null;
+    this.length = chunk.length();
+    this.height = 0;
+  }
+
+  private Rope(Rope left, Rope right) {
+    this.chunk = null;
+    this.left = left;
+    this.right = right;
+    this.length = left.length + right.length;
+    this.height = Math.max(left.height, right.height) + 1;
+  }
+
+  /**
+   * Creates a rope for the given text.
+   *
+   * @param text The text of the rope.
+   * @return The created rope.
+   */
+  public static Rope of(CharSequence text) {
+    return build(text, 0, text.length());
+  }
+
+  /**
+   * Creates a new rope in which a range of this rope is replaced.
+   *
+   * @param start The start of the replaced range, inclusive.
+   * @param end The end of the replaced range, exclusive.
+   * @param replacement The text which replaces the range.
+   * @return The edited rope.
+   */
+  public Rope replace(int start, int end, CharSequence replacement) {
+    Objects.checkFromToIndex(start, end, length);
+
+    return join(join(prefix(start), of(replacement)), suffix(end));
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    Objects.checkIndex(index, length);
+
+    var node = this;
+    var pos = index;
+
+    while (node.chunk == null) {
+      if (pos < node.left.length) {
+        node = node.left;
+      } else {
+        pos -= node.left.length;
+        node = node.right;
+      }
+    }
+
+    return node.chunk.charAt(pos);
+  }
+
+  @Override
+  public String subSequence(int start, int end) {
+    Objects.checkFromToIndex(start, end, length);
+
+    final var sb = new StringBuilder(end - start);
+    appendTo(sb, start, end);
+
+    return sb.toString();
+  }
+
+  @Override
+  public String toString() {
+    return subSequence(0, length);
+  }
+
+  /** Builds a balanced rope for a range of a text. */
+  private static Rope build(CharSequence text, int start, int end) {
+    if (end - start <= CHUNK_SIZE) {
+      return new Rope(text.subSequence(start, end).toString());
+    }
+
+    final var chunks = (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    final var mid = start + chunks / 2 * CHUNK_SIZE;
+
+    return new Rope(build(text, start, mid), build(text, mid, end));
+  }
+
+  /** Returns the first characters of this rope up to the given position, exclusive. */
+  private Rope prefix(int end) {
+    if (end == length) {
+      return this;
+    }
+
+    if (end == 0) {
+      return EMPTY;
+    }
+
+    if (chunk != null) {
+      return new Rope(chunk.substring(0, end));
+    }
+
+    if (end <= left.length) {
+      return left.prefix(end);
+    }
+
+    return join(left, right.prefix(end - left.length));
+  }
+
+  /** Returns the last characters of this rope from the given position on. */
+  private Rope suffix(int start) {
+    if (start == 0) {
+      return this;
+    }
+
+    if (start == length) {
+      return EMPTY;
+    }
+
+    if (chunk != null) {
+      return new Rope(chunk.substring(start));
+    }
+
+    if (start >= left.length) {
+      return right.suffix(start - left.length);
+    }
+
+    return join(left.suffix(start), right);
+  }
+
+  /**
+   * Concatenates two ropes and keeps the heights of all siblings within one of each other.
+   *
+   * <p>The shorter rope is joined into the outer spine of the taller one, which takes time
+   * proportional to the difference of their heights.
+   */
+  private static Rope join(Rope a, Rope b) {
+    if (a.length == 0) {
+      return b;
+    }
+
+    if (b.length == 0) {
+      return a;
+    }
+
+    if (a.height > b.height + 1) {
+      return balance(a.left, join(a.right, b));
+    }
+
+    if (b.height > a.height + 1) {
+      return balance(join(a, b.left), b.right);
+    }
+
+    return node(a, b);
+  }
+
+  /** Creates a node for two ropes whose heights differ by at most two, rotating if required. */
+  private static Rope balance(Rope l, Rope r) {
+    if (l.height > r.height + 1) {
+      if (l.left.height >= l.right.height) {
+        return node(l.left, join(l.right, r));
+      }
+
+      return node(join(l.left, l.right.left), join(l.right.right, r));
+    }
+
+    if (r.height > l.height + 1) {
+      if (r.right.height >= r.left.height) {
+        return node(join(l, r.left), r.right);
+      }
+
+      return node(join(l, r.left.left), join(r.left.right, r.right));
+    }
+
+    return node(l, r);
+  }
+
+  /** Creates a node for two ropes and merges them into a single chunk if both are short. */
+  private static Rope node(Rope l, Rope r) {
+    if (l.chunk != null && r.chunk != null && l.length + r.length <= CHUNK_SIZE) {
+      return new Rope(l.chunk + r.chunk);
+    }
+
+    return new Rope(l, r);
+  }
+
+  /** Appends a range of this rope to a builder. */
+  private void appendTo(StringBuilder sb, int start, int end) {
+    if (start >= end) {
+      return;
+    }
+
+    if (chunk != null) {
+      sb.append(chunk, start, end);
+      return;
+    }
+
+    if (start < left.length) {
+      left.appendTo(sb, start, Math.min(end, left.length));
+    }
+
+    if (end > left.length) {
+      right.appendTo(sb, Math.max(start - left.length, 0), end - left.length);
+    }
+  }
+}
@@ -1,51 +1,163 @@
 package sh.sidd.asmi.scanner;
 
+import lombok.Getter;
 import sh.sidd.asmi.ErrorHandler;
+import sh.sidd.asmi.data.SymbolTable;
 import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenStream;
 import sh.sidd.asmi.data.TokenType;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Scans Asmi source code and generates a list of {@link Token}.
+ * Scans Asmi source code and generates {@link Token}.
+ *
+ * <p>Tokens are either scanned all at once via {@link #scanTokenBuffer()} or pulled one by one as a
+ * {@link TokenStream}. A scanner can only be consumed once.
  *
  * See {@link sh.sidd.asmi.parser.Parser} on how {@link Token} are processed.
  */
-public class Scanner implements SourceRetriever {
-  private final String source;
-  private final List<String> sourceLines;
+public class Scanner implements SourceRetriever, TokenStream {
+  private final CharSequence source;
   private final SourceReader reader;
-  private final List<Token> tokens = new ArrayList<>();
-  private final Map<String, TokenType> keywordTokens;
+  private final TokenBuffer tokens;
   private final ErrorHandler errorHandler;
+  @Getter private final SymbolTable symbolTable;
+  @Getter private final LineIndex lineIndex;
+  private final boolean recordLineStarts;
   private int tokenStartPos;
   private int currentLine;
+  private long numberMantissa;
+  private int numberDigits;
+  private int numberPositions;
+
+  public Scanner(CharSequence source, ErrorHandler errorHandler) {
+    this(source, errorHandler, new SymbolTable());
+  }
 
-  public Scanner(String source, ErrorHandler errorHandler) {
-    this.reader = new SourceReader(source);
+  public Scanner(CharSequence source, ErrorHandler errorHandler, SymbolTable symbolTable) {
+    this(source, errorHandler, symbolTable, 0, source.length(), 0);
+  }
+
+  /**
+   * Creates a scanner which only scans a part of a source.
+   *
+   * @param source The complete source.
+   * @param errorHandler The handler to report errors to.
+   * @param symbolTable The table to intern identifiers in.
+   * @param startPos The position to start scanning at. Must not be inside a token or comment.
+   * @param endPos The position to stop scanning at, exclusive. Must not be inside a token.
+   * @param startLine The 0-indexed line of the start position.
+   */
+  public Scanner(CharSequence source, ErrorHandler errorHandler, SymbolTable symbolTable,
+      int startPos, int endPos, int startLine) {
+    this.reader = new SourceReader(source, startPos, endPos);
     this.source = source;
-    this.sourceLines = Arrays.asList(source.split("\\n"));
+    this.tokens = new TokenBuffer(source);
+    this.lineIndex = new LineIndex(source);
+    this.recordLineStarts = startPos == 0;
     this.errorHandler = errorHandler;
-    this.keywordTokens = TokenType.getKeywordTokens();
+    this.symbolTable = symbolTable;
+    this.currentLine = startLine;
   }
 
   /**
    * Scans and returns all tokens of the file.
    */
   public List<Token> scanTokens() {
+    final var tokens = new ArrayList<Token>();
+    Token token;
+
+    do {
+      token = nextToken();
+      tokens.add(token);
+    } while (token.tokenType() != TokenType.EOF);
+
+    return tokens;
+  }
+
+  /**
+   * Scans all tokens of the file into a packed {@link TokenBuffer}.
+   *
+   * <p>The returned buffer ends with an {@link TokenType#EOF} token.
+   */
+  public TokenBuffer scanTokenBuffer() {
+    tokens.clear();
+
     while (!reader.isAtEnd()) {
       tokenStartPos = reader.getCurrentPos();
       scanToken();
     }
 
-    tokens.add(new Token(TokenType.EOF, "", null, currentLine));
+    tokenStartPos = reader.getCurrentPos();
+    addToken(TokenType.EOF);
 
     return tokens;
   }
 
+  /**
+   * Scans the next token and returns it.
+   *
+   * <p>Prefer {@link #advance()} and the accessors of the {@link TokenStream} if the token does
+   * not have to be kept, as they do not create a {@link Token}.
+   */
+  public Token nextToken() {
+    advance();
+
+    return tokens.toToken(0);
+  }
+
+  @Override
+  public void advance() {
+    tokens.clear();
+
+    while (!reader.isAtEnd() && tokens.size() == 0) {
+      tokenStartPos = reader.getCurrentPos();
+      scanToken();
+    }
+
+    if (tokens.size() == 0) {
+      tokenStartPos = reader.getCurrentPos();
+      addToken(TokenType.EOF);
+    }
+  }
+
+  @Override
+  public TokenType tokenType() {
+    return tokens.getTokenType(0);
+  }
+
+  @Override
+  public CharSequence source() {
+    return source;
+  }
+
+  @Override
+  public int start() {
+    return tokens.getStart(0);
+  }
+
+  @Override
+  public int length() {
+    return tokens.getLength(0);
+  }
+
+  @Override
+  public int line() {
+    return tokens.getLine(0);
+  }
+
+  @Override
+  public int symbol() {
+    return tokens.getSymbol(0);
+  }
+
+  @Override
+  public Object literal() {
+    return tokens.getLiteral(0);
+  }
+
   /**
    * Scans a single token.
    */
@@ -68,9 +180,9 @@ public class Scanner implements SourceRetriever {
       case '<' -> addToken(reader.advanceIfMatch('=') ? TokenType.LESS_EQUAL : TokenType.LESS);
       case '>' -> addToken(reader.advanceIfMatch('=') ? TokenType.GREATER_EQUAL : TokenType.GREATER);
 
-      case ' ', '\r', '\t' -> {}
+      case ' ', '\r', '\t' -> reader.advanceWhile(CharClasses.WHITESPACE);
 
-      case '\n' -> currentLine++;
+      case '\n' -> startNewLine();
 
       case '"' -> scanString();
 
@@ -82,12 +194,45 @@ public class Scanner implements SourceRetriever {
         } else if(isAlpha(c)) {
           scanIdentifier();
         } else {
-          errorHandler.report(currentLine, "Unexpected character: " + c);
+          scanUnexpectedCharacter(c);
         }
       }
     }
   }
 
+  /**
+   * Reports an unexpected character.
+   *
+   * <p>Characters outside of ASCII are reported once per code point, also for sources like
+   * {@link MappedSource} which expose each byte of a UTF-8 sequence as its own character.
+   *
+   * @param c The unexpected character, which was already read.
+   */
+  private void scanUnexpectedCharacter(char c) {
+    if(c < 0x80) {
+      errorHandler.report(currentLine, "Unexpected character: " + c);
+      return;
+    }
+
+    final var end = Math.min(tokenStartPos + getCodePointLength(tokenStartPos), source.length());
+
+    while(reader.getCurrentPos() < end && !reader.isAtEnd()) {
+      reader.readAndAdvance();
+    }
+
+    errorHandler.report(
+        currentLine, "Unexpected character: " + getText(tokenStartPos, reader.getCurrentPos()));
+  }
+
+  /** Returns the number of characters of the source which encode the code point at a position. */
+  private int getCodePointLength(int pos) {
+    if(source instanceof MappedSource mappedSource) {
+      return mappedSource.getCodePointLength(pos);
+    }
+
+    return Character.charCount(Character.codePointAt(source, pos));
+  }
+
   /**
    * Adds a single token of the given type.
    *
@@ -104,8 +249,31 @@ public class Scanner implements SourceRetriever {
    * @param literal The literal to set for the token.
    */
   private void addToken(TokenType tokenType, Object literal) {
-    final var text = source.substring(tokenStartPos, reader.getCurrentPos());
-    tokens.add(new Token(tokenType, text, literal, currentLine));
+    addToken(tokenType, Token.NO_SYMBOL, literal);
+  }
+
+  /**
+   * Adds a single token with a given identifier and literal.
+   *
+   * @param tokenType The type of the token to add.
+   * @param symbol The id of the identifier of the token.
+   * @param literal The literal to set for the token.
+   */
+  private void addToken(TokenType tokenType, int symbol, Object literal) {
+    tokens.add(tokenType, tokenStartPos, reader.getCurrentPos() - tokenStartPos, currentLine,
+        symbol, literal);
+  }
+
+  /**
+   * Advances the current line after a newline character was read.
+   */
+  private void startNewLine() {
+    currentLine++;
+
+    // Line starts can only be recorded if all previous lines were scanned as well.
+    if (recordLineStarts) {
+      lineIndex.addLineStart(reader.getCurrentPos());
+    }
   }
 
   /**
@@ -113,11 +281,11 @@ public class Scanner implements SourceRetriever {
    */
   private void scanString() {
     while(reader.peek() != '"' && !reader.isAtEnd()) {
-      if(reader.peek() == '\n') {
-        currentLine++;
-      }
-
       reader.readAndAdvance();
+
+      if(reader.previous() == '\n') {
+        startNewLine();
+      }
     }
 
     if(reader.isAtEnd()) {
@@ -127,7 +295,7 @@ public class Scanner implements SourceRetriever {
 
     reader.readAndAdvance();
 
-    final var value = source.substring(tokenStartPos + 1, reader.getCurrentPos() - 1);
+    final var value = getText(tokenStartPos + 1, reader.getCurrentPos() - 1);
 
     addToken(TokenType.STRING, value);
   }
@@ -138,34 +306,174 @@ public class Scanner implements SourceRetriever {
    * Does not create any tokens.
    */
   private void scanLineComment() {
-    while(reader.peek() != '\n' && !reader.isAtEnd()) {
-      reader.readAndAdvance();
-    }
+    reader.advanceUntil('\n');
   }
 
   /**
    * Scans a single number token.
+   *
+   * <p>Digits are accumulated directly from the source. Besides plain integers and decimals, `_`
+   * separators between digits, hexadecimal integers like `0xFF` and the suffixes `L` for long and
+   * `f` for float literals are supported. Integers without a suffix which do not fit into an int
+   * become long literals.
    */
   private void scanNumber() {
+    if(reader.previous() == '0'
+        && (reader.peek() == 'x' || reader.peek() == 'X')
+        && CharClasses.matches(reader.peekNext(), CharClasses.HEX_DIGIT)) {
+      reader.readAndAdvance();
+      scanHexNumber();
+      return;
+    }
+
+    numberMantissa = 0;
+    numberDigits = 0;
+    numberPositions = 0;
+
+    accumulateDigit(reader.previous());
+    scanDigits();
+
     var isFloating = false;
+    var fractionDigits = 0;
 
-    while(isDigit(reader.peek())) {
+    if(reader.peek() == '.' && isDigit(reader.peekNext()) && reader.previous() != '_') {
       reader.readAndAdvance();
+      isFloating = true;
+
+      final var integerDigits = numberPositions;
+      scanDigits();
+      fractionDigits = numberPositions - integerDigits;
     }
 
-    if(reader.peek() == '.' && isDigit(reader.peekNext())) {
+    if(reader.previous() == '_') {
+      errorHandler.report(currentLine, "Invalid number literal.");
+      return;
+    }
+
+    final var end = reader.getCurrentPos();
+    final var suffix = reader.peek();
+
+    if(suffix == 'f' || suffix == 'F') {
       reader.readAndAdvance();
-      isFloating = true;
+      addToken(TokenType.NUMBER, NumberLiterals.toFloat(
+          numberMantissa, numberDigits, fractionDigits, source, tokenStartPos, end));
+    } else if(isFloating) {
+      addToken(TokenType.NUMBER, NumberLiterals.toDouble(
+          numberMantissa, numberDigits, fractionDigits, source, tokenStartPos, end));
+    } else {
+      final var isLong = suffix == 'L' || suffix == 'l';
+
+      if(isLong) {
+        reader.readAndAdvance();
+      }
+
+      if(numberDigits < 0) {
+        errorHandler.report(currentLine, "Number literal is too large.");
+      } else {
+        addIntegerToken(numberMantissa, isLong || numberMantissa > Integer.MAX_VALUE);
+      }
+    }
+  }
+
+  /**
+   * Scans the digits of a hexadecimal number token after the leading `0x`.
+   */
+  private void scanHexNumber() {
+    var value = 0L;
+    var digits = 0;
+
+    while(true) {
+      final var c = reader.peek();
+
+      if(CharClasses.matches(c, CharClasses.HEX_DIGIT)) {
+        reader.readAndAdvance();
+
+        if(digits > 0 || c != '0') {
+          digits++;
+        }
+
+        value = (value << 4) | Character.digit(c, 16);
+      } else if(c == '_') {
+        reader.readAndAdvance();
+      } else {
+        break;
+      }
+    }
+
+    if(reader.previous() == '_') {
+      errorHandler.report(currentLine, "Invalid number literal.");
+      return;
+    }
+
+    final var isLong = reader.peek() == 'L' || reader.peek() == 'l';
 
-      while(isDigit(reader.peek())) {
+    if(isLong) {
+      reader.readAndAdvance();
+    }
+
+    if(digits > 16) {
+      errorHandler.report(currentLine, "Number literal is too large.");
+    } else {
+      // Like in Java, hexadecimal int literals may use all 32 bits.
+      addIntegerToken(value, isLong || (value >>> 32) != 0);
+    }
+  }
+
+  /**
+   * Scans a run of decimal digits and `_` separators, accumulating the digits into the mantissa.
+   */
+  private void scanDigits() {
+    while(true) {
+      final var c = reader.peek();
+
+      if(isDigit(c)) {
+        reader.readAndAdvance();
+        accumulateDigit(c);
+      } else if(c == '_') {
         reader.readAndAdvance();
+      } else {
+        return;
       }
     }
+  }
 
-    if(isFloating) {
-      addToken(TokenType.NUMBER, Double.parseDouble(source.substring(tokenStartPos, reader.getCurrentPos())));
+  /**
+   * Appends a single decimal digit to the mantissa of the current number token.
+   *
+   * <p>Leading zeros do not count as significant digits. If the mantissa overflows, the number of
+   * significant digits is set to -1.
+   *
+   * @param c The digit to append.
+   */
+  private void accumulateDigit(char c) {
+    final var digit = c - '0';
+
+    numberPositions++;
+
+    if(numberDigits < 0 || (numberDigits == 0 && digit == 0)) {
+      return;
+    }
+
+    if(numberMantissa > (Long.MAX_VALUE - digit) / 10) {
+      numberDigits = -1;
+      return;
+    }
+
+    numberMantissa = numberMantissa * 10 + digit;
+    numberDigits++;
+  }
+
+  /**
+   * Adds a number token for an integer value.
+   *
+   * @param value The value of the token.
+   * @param isLong Whether the value is a long or an int literal.
+   */
+  private void addIntegerToken(long value, boolean isLong) {
+    if(isLong) {
+      addToken(TokenType.NUMBER, value);
     } else {
-      addToken(TokenType.NUMBER, Integer.parseInt(source.substring(tokenStartPos, reader.getCurrentPos())));
+      addToken(TokenType.NUMBER, (int) value);
     }
   }
 
@@ -173,18 +481,16 @@ public class Scanner implements SourceRetriever {
    * Scans a single identifier token.
    */
   private void scanIdentifier() {
-    while(isAlphaNumeric(reader.peek())) {
-      reader.readAndAdvance();
-    }
+    reader.advanceWhile(CharClasses.ALPHA_NUMERIC);
 
-    final var text = source.substring(tokenStartPos, reader.getCurrentPos());
-    var tokenType = keywordTokens.get(text);
+    final var tokenType = Keywords.find(source, tokenStartPos, reader.getCurrentPos());
 
     if(tokenType == null) {
-      tokenType = TokenType.IDENTIFIER;
+      final var symbol = symbolTable.intern(source, tokenStartPos, reader.getCurrentPos());
+      addToken(TokenType.IDENTIFIER, symbol, null);
+    } else {
+      addToken(tokenType);
     }
-
-    addToken(tokenType);
   }
 
   /**
@@ -194,7 +500,7 @@ public class Scanner implements SourceRetriever {
    * @return {@code true} If the given character is a digit.
    */
   private boolean isDigit(char c) {
-    return c >= '0' && c <= '9';
+    return CharClasses.matches(c, CharClasses.DIGIT);
   }
 
   /**
@@ -204,27 +510,22 @@ public class Scanner implements SourceRetriever {
    * @return {@code true} If the given character was alphabetical.
    */
   private boolean isAlpha(char c) {
-    return (c >= 'a' && c <= 'z') ||
-           (c >= 'A' && c <= 'Z') ||
-            c == '_';
+    return CharClasses.matches(c, CharClasses.ALPHA);
   }
 
   /**
-   * Checks whether the given character is either {@link #isAlpha} or {@link #isDigit}
+   * Returns the text of the source between the given positions.
    *
-   * @param c The character to check.
-   * @return {@code true} If the character was alphanumeric.
+   * @param start The start position, inclusive.
+   * @param end The end position, exclusive.
+   * @return The text of the source.
    */
-  private boolean isAlphaNumeric(char c) {
-     return isAlpha(c) || isDigit(c);
+  private String getText(int start, int end) {
+    return source.subSequence(start, end).toString();
   }
 
   @Override
   public String getLine(int line) {
-    if(line >= sourceLines.size()) {
-      throw new ScannerException(String.format("Cannot retrieve line at %d", line));
-    }
-
-    return sourceLines.get(line);
+    return lineIndex.getLine(line);
   }
 }
@@ -4,16 +4,30 @@ import lombok.Getter;
 
 /** Helper to simplify reading parts of a source. */
 public class SourceReader {
-  private final String source;
+  private final CharSequence source;
+  private final int endPos;
   @Getter private int currentPos;
 
-  public SourceReader(String source) {
+  public SourceReader(CharSequence source) {
+    this(source, 0, source.length());
+  }
+
+  /**
+   * Creates a reader for a part of the source.
+   *
+   * @param source The complete source.
+   * @param startPos The position to start reading at.
+   * @param endPos The position at which the reader ends, exclusive.
+   */
+  public SourceReader(CharSequence source, int startPos, int endPos) {
     this.source = source;
+    this.currentPos = startPos;
+    this.endPos = endPos;
   }
 
   /** Checks whether the current position is at the end of the file. */
   public boolean isAtEnd() {
-    return currentPos >= source.length();
+    return currentPos >= endPos;
   }
 
   /** Reads a single character and advances the current position by one character. */
@@ -37,6 +51,44 @@ public class SourceReader {
     return true;
   }
 
+  /**
+   * Advances the current position over a run of characters of the given classes.
+   *
+   * <p>Checks the end of the source once per character instead of once per {@link #peek()} and
+   * {@link #readAndAdvance()} call.
+   *
+   * @param classes The {@link CharClasses} of the run, combined via bitwise or.
+   */
+  public void advanceWhile(int classes) {
+    var pos = currentPos;
+
+    while (pos < endPos && CharClasses.matches(source.charAt(pos), classes)) {
+      pos++;
+    }
+
+    currentPos = pos;
+  }
+
+  /**
+   * Advances the current position up to the next occurrence of the given character.
+   *
+   * @param c The character to stop at. The position is not advanced past it.
+   */
+  public void advanceUntil(char c) {
+    var pos = currentPos;
+
+    while (pos < endPos && source.charAt(pos) != c) {
+      pos++;
+    }
+
+    currentPos = pos;
+  }
+
+  /** Returns the character before the current position. */
+  public char previous() {
+    return source.charAt(currentPos - 1);
+  }
+
   /** Returns the character at the current position without advancing the position. */
   public char peek() {
     if (isAtEnd()) {
@@ -48,7 +100,7 @@ public class SourceReader {
 
   /** Returns the character at the next position without advancing the position. */
   public char peekNext() {
-    if (currentPos + 1 >= source.length()) {
+    if (currentPos + 1 >= endPos) {
       return '\0';
     }
 
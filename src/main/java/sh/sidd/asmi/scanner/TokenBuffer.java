@@ -0,0 +1,236 @@
+package sh.sidd.asmi.scanner;
+
+import java.util.Arrays;
+import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenStream;
+import sh.sidd.asmi.data.TokenType;
+
+/**
+ * Packed storage for scanned tokens.
+ *
+ * <p>Tokens are stored as parallel primitive arrays instead of {@link Token} objects. Literals are
+ * kept in a side table as only few tokens carry one. Lexemes are not stored at all and are sliced
+ * from the source on demand.
+ */
+public class TokenBuffer {
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final CharSequence source;
+
+  private int[] types = new int[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] lengths = new int[INITIAL_CAPACITY];
+  private int[] lines = new int[INITIAL_CAPACITY];
+  private int[] symbols = new int[INITIAL_CAPACITY];
+  private int size;
+
+  private int[] literalTokens = new int[INITIAL_CAPACITY];
+  private Object[] literalValues = new Object[INITIAL_CAPACITY];
+  private int literalCount;
+
+  public TokenBuffer(CharSequence source) {
+    this.source = source;
+  }
+
+  /**
+   * Adds a single token.
+   *
+   * @param tokenType The type of the token.
+   * @param start The start position of the token in the source.
+   * @param length The length of the token in the source.
+   * @param line The 0-indexed line of the token.
+   * @param symbol The id of the identifier or {@link Token#NO_SYMBOL}.
+   * @param literal The literal of the token, may be {@code null}.
+   */
+  public void add(TokenType tokenType, int start, int length, int line, int symbol,
+      Object literal) {
+    if (size == types.length) {
+      final var capacity = size * 2;
+
+      types = Arrays.copyOf(types, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      lengths = Arrays.copyOf(lengths, capacity);
+      lines = Arrays.copyOf(lines, capacity);
+      symbols = Arrays.copyOf(symbols, capacity);
+    }
+
+    if (literal != null) {
+      if (literalCount == literalTokens.length) {
+        literalTokens = Arrays.copyOf(literalTokens, literalCount * 2);
+        literalValues = Arrays.copyOf(literalValues, literalCount * 2);
+      }
+
+      literalTokens[literalCount] = size;
+      literalValues[literalCount] = literal;
+      literalCount++;
+    }
+
+    types[size] = tokenType.ordinal();
+    starts[size] = start;
+    lengths[size] = length;
+    lines[size] = line;
+    symbols[size] = symbol;
+    size++;
+  }
+
+  /**
+   * Appends tokens of another buffer over the same source.
+   *
+   * @param other The buffer to copy the tokens from.
+   * @param count The number of tokens to copy from the start of the other buffer.
+   * @param symbolMapping Maps identifier ids of the other buffer to the ids of this buffer.
+   */
+  public void append(TokenBuffer other, int count, int[] symbolMapping) {
+    var literalIndex = 0;
+
+    for (int i = 0; i < count; i++) {
+      final var symbol = other.symbols[i];
+      Object literal = null;
+
+      if (literalIndex < other.literalCount && other.literalTokens[literalIndex] == i) {
+        literal = other.literalValues[literalIndex++];
+      }
+
+      add(other.getTokenType(i), other.starts[i], other.lengths[i], other.lines[i],
+          symbol == Token.NO_SYMBOL ? symbol : symbolMapping[symbol], literal);
+    }
+  }
+
+  /** Removes all tokens from the buffer. */
+  public void clear() {
+    size = 0;
+    Arrays.fill(literalValues, 0, literalCount, null);
+    literalCount = 0;
+  }
+
+  /** Returns the number of tokens in the buffer. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the type of the token at the given index. */
+  public TokenType getTokenType(int index) {
+    return TOKEN_TYPES[types[checkIndex(index)]];
+  }
+
+  /** Returns the start position in the source of the token at the given index. */
+  public int getStart(int index) {
+    return starts[checkIndex(index)];
+  }
+
+  /** Returns the length in the source of the token at the given index. */
+  public int getLength(int index) {
+    return lengths[checkIndex(index)];
+  }
+
+  /** Returns the 0-indexed line of the token at the given index. */
+  public int getLine(int index) {
+    return lines[checkIndex(index)];
+  }
+
+  /** Returns the identifier id of the token at the given index or {@link Token#NO_SYMBOL}. */
+  public int getSymbol(int index) {
+    return symbols[checkIndex(index)];
+  }
+
+  /** Returns the literal of the token at the given index or {@code null} if it has none. */
+  public Object getLiteral(int index) {
+    final var literalIndex = Arrays.binarySearch(literalTokens, 0, literalCount, checkIndex(index));
+
+    return literalIndex >= 0 ? literalValues[literalIndex] : null;
+  }
+
+  /** Creates the lexeme of the token at the given index. */
+  public String getLexeme(int index) {
+    final var start = getStart(index);
+
+    return source.subSequence(start, start + lengths[index]).toString();
+  }
+
+  /**
+   * Creates a {@link Token} for the token at the given index.
+   *
+   * <p>The lexeme of the created token is only sliced from the source once it is requested.
+   */
+  public Token toToken(int index) {
+    return new Token(getTokenType(index), source, starts[index], lengths[index],
+        getLiteral(index), lines[index], symbols[index]);
+  }
+
+  /**
+   * Creates a stream over all tokens in the buffer.
+   *
+   * <p>The buffer must end with a {@link TokenType#EOF} token.
+   */
+  public TokenStream stream() {
+    return stream(0, size - 1);
+  }
+
+  /**
+   * Creates a stream over a range of tokens in the buffer, followed by an {@link TokenType#EOF}
+   * token at the position of the first token after the range.
+   *
+   * @param start The index of the first token, inclusive.
+   * @param end The index of the last token, exclusive. Must be a valid index.
+   */
+  public TokenStream stream(int start, int end) {
+    final var eofStart = getStart(end);
+    final var eofLine = getLine(end);
+
+    return new TokenStream() {
+      private int currentPos = start - 1;
+
+      @Override
+      public void advance() {
+        if (currentPos < end) {
+          currentPos++;
+        }
+      }
+
+      @Override
+      public TokenType tokenType() {
+        return currentPos < end ? getTokenType(currentPos) : TokenType.EOF;
+      }
+
+      @Override
+      public CharSequence source() {
+        return source;
+      }
+
+      @Override
+      public int start() {
+        return currentPos < end ? starts[currentPos] : eofStart;
+      }
+
+      @Override
+      public int length() {
+        return currentPos < end ? lengths[currentPos] : 0;
+      }
+
+      @Override
+      public int line() {
+        return currentPos < end ? lines[currentPos] : eofLine;
+      }
+
+      @Override
+      public int symbol() {
+        return currentPos < end ? symbols[currentPos] : Token.NO_SYMBOL;
+      }
+
+      @Override
+      public Object literal() {
+        return currentPos < end ? getLiteral(currentPos) : null;
+      }
+    };
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Token index %d out of bounds for size %d", index, size));
+    }
+
+    return index;
+  }
+}
@@ -0,0 +1,84 @@
+package sh.sidd.asmi;
+
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.parser.Parser;
+import sh.sidd.asmi.scanner.Scanner;
+
+/**
+ * Simple measurement of the heap retained by an {@link ExprArena} which the parser filled with the
+ * expressions of a large generated source.
+ *
+ * <p>The retained heap is the difference of the used heap after a full collection with and without
+ * the arena. The statements are dropped first, so they are reported separately. Both include the
+ * unused capacity of their arrays. The allocated bytes cover everything the parse allocated,
+ * including short-lived objects.
+ *
+ * <p>Not run as part of the tests. Run it via
+ * {@code java -cp target/classes:target/test-classes:<dependencies> sh.sidd.asmi.ArenaMemoryBenchmark}.
+ */
+public final class ArenaMemoryBenchmark {
+  private ArenaMemoryBenchmark() {}
+
+  public static void main(String[] args) {
+    final var source = generateSource(args.length > 0 ? Integer.parseInt(args[0]) : 200_000);
+    final var before = usedHeap();
+    final var errorHandler = ErrorHandler.collecting();
+    final var arena = new ExprArena();
+    final var parsed = new ArrayList<List<Stmt>>();
+    final var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+    parsed.add(new Parser(errorHandler, new Scanner(source, errorHandler), arena).parse());
+
+    final var allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+    final var statementCount = parsed.get(0).size();
+    final var withStatements = usedHeap();
+
+    parsed.clear();
+
+    final var withArena = usedHeap();
+
+    if (errorHandler.hasErrors() || statementCount == 0) {
+      throw new IllegalStateException("Failed to parse the generated source");
+    }
+
+    System.out.printf("Statements: %d, nodes: %d%n", statementCount, arena.size());
+    report("Arena", withArena - before, arena.size(), "node");
+    report("Statements", withStatements - withArena, statementCount, "statement");
+    report("Allocated", allocated, arena.size(), "node");
+  }
+
+  private static void report(String name, long bytes, int count, String unit) {
+    System.out.printf("%-11s %8.1f MB  %6.1f bytes/%s%n", name, bytes / 1_000_000.0,
+        (double) bytes / count, unit);
+  }
+
+  private static String generateSource(int lines) {
+    final var sb = new StringBuilder();
+
+    for (var i = 0; i < lines; i++) {
+      sb.append("var value").append(i).append(" = (").append(i * 31L).append(" + other_")
+          .append(i % 97).append(") * -").append(i % 7).append(" - 123456.5\n");
+      sb.append("print value").append(i).append(" < 1000000 and value").append(i)
+          .append(" != ").append(i).append('\n');
+    }
+
+    return sb.toString();
+  }
+
+  private static long usedHeap() {
+    final var runtime = Runtime.getRuntime();
+
+    for (var i = 0; i < 5; i++) {
+      System.gc();
+    }
+
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
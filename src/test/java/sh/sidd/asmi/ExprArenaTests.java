@@ -0,0 +1,139 @@
+package sh.sidd.asmi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import sh.sidd.asmi.data.Expr;
+import sh.sidd.asmi.data.Expr.ArenaExpr;
+import sh.sidd.asmi.data.Expr.BinaryExpr;
+import sh.sidd.asmi.data.Expr.GroupingExpr;
+import sh.sidd.asmi.data.Expr.LiteralExpr;
+import sh.sidd.asmi.data.Expr.UnaryExpr;
+import sh.sidd.asmi.data.Expr.VariableExpr;
+import sh.sidd.asmi.data.ExprArena;
+import sh.sidd.asmi.data.ExprArena.Kind;
+import sh.sidd.asmi.data.Stmt.AssignStmt;
+import sh.sidd.asmi.data.Stmt.PrintStmt;
+import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.parser.Parser;
+import sh.sidd.asmi.scanner.Scanner;
+
+class ExprArenaTests {
+
+  @Test
+  void shouldStoreExpressionsInPostOrder() {
+    final var arena = new ExprArena();
+    final var expr = parseExpression("-(a + 2) * 3");
+
+    final var root = arena.add(expr);
+
+    assertThat(root).isEqualTo(6);
+    assertThat(arena.getFirst(root)).isEqualTo(0);
+    assertThat(expr.getArenaIndex()).isEqualTo(root);
+
+    assertThat(arena.getKind(0)).isEqualTo(Kind.VARIABLE);
+    assertThat(arena.getKind(1)).isEqualTo(Kind.LITERAL);
+    assertThat(arena.getKind(2)).isEqualTo(Kind.BINARY);
+    assertThat(arena.getKind(3)).isEqualTo(Kind.GROUPING);
+    assertThat(arena.getKind(4)).isEqualTo(Kind.UNARY);
+    assertThat(arena.getKind(5)).isEqualTo(Kind.LITERAL);
+    assertThat(arena.getKind(6)).isEqualTo(Kind.BINARY);
+
+    assertThat(arena.getLeft(2)).isEqualTo(0);
+    assertThat(arena.getRight(2)).isEqualTo(1);
+    assertThat(arena.getLeft(6)).isEqualTo(4);
+    assertThat(arena.getRight(6)).isEqualTo(5);
+    assertThat(arena.getParent(4)).isEqualTo(6);
+    assertThat(arena.getParent(root)).isEqualTo(ExprArena.NONE);
+    assertThat(arena.getValue(5)).isEqualTo(3);
+    assertThat(arena.getToken(0).lexeme()).isEqualTo("a");
+  }
+
+  @Test
+  void shouldAppendExpressions() {
+    final var arena = new ExprArena();
+
+    arena.add(parseExpression("1 + 2"));
+    final var root = arena.add(parseExpression("(4)"));
+
+    assertThat(arena.size()).isEqualTo(5);
+    assertThat(root).isEqualTo(4);
+    assertThat(arena.getFirst(root)).isEqualTo(3);
+  }
+
+  @Test
+  void shouldParseExpressionsIntoArena() {
+    final var arena = new ExprArena();
+    final var errorHandler = new ErrorHandler();
+    final var statements = new Parser(
+        errorHandler, new Scanner("print -(a + 2) * 3\nb = a", errorHandler), arena).parse();
+
+    assertThat(errorHandler.hasErrors()).isFalse();
+
+    final var expr = ((PrintStmt) statements.get(0)).getExpression();
+
+    assertThat(expr).isInstanceOf(ArenaExpr.class);
+    assertThat(expr.getArenaIndex()).isEqualTo(6);
+    assertThat(arena.add(expr)).isEqualTo(6);
+    assertThat(arena.getFirst(6)).isEqualTo(0);
+    assertThat(arena.getKind(4)).isEqualTo(Kind.UNARY);
+    assertThat(arena.getLeft(6)).isEqualTo(4);
+    assertThat(arena.getRight(6)).isEqualTo(5);
+
+    final var assign = (AssignStmt) statements.get(1);
+
+    assertThat(assign.getName().lexeme()).isEqualTo("b");
+    assertThat(arena.getKind(assign.getValue().getArenaIndex())).isEqualTo(Kind.VARIABLE);
+  }
+
+  @Test
+  void shouldConvertNodesToExpressions() {
+    final var arena = new ExprArena();
+    final var root = arena.add(parseExpression("-(a + 2) * 3"));
+
+    final var expr = (BinaryExpr) arena.toExpr(root);
+
+    assertThat(expr.getOperator().lexeme()).isEqualTo("*");
+    assertThat(((LiteralExpr) expr.getRight()).getValue()).isEqualTo(3);
+
+    final var group = (GroupingExpr) ((UnaryExpr) expr.getLeft()).getRight();
+    final var sum = (BinaryExpr) group.getExpr();
+
+    assertThat(((VariableExpr) sum.getLeft()).getName().lexeme()).isEqualTo("a");
+    assertThat(((LiteralExpr) sum.getRight()).getValue()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldStoreValuesAndTokensWithoutObjects() {
+    final var arena = new ExprArena();
+    final var root = arena.add(parseExpression("1.5f + 2.25 + 3L + \"s\" + a"));
+
+    assertThat(arena.getValue(0)).isEqualTo(1.5f);
+    assertThat(arena.getValue(1)).isEqualTo(2.25);
+    assertThat(arena.getValue(3)).isEqualTo(3L);
+    assertThat(arena.getValue(5)).isEqualTo("s");
+    assertThat(arena.getValue(root)).isNull();
+
+    arena.setConstant(root, (short) 7);
+    arena.setConstant(7, true);
+
+    assertThat(arena.getValue(root)).isEqualTo((short) 7);
+    assertThat(arena.getValue(7)).isEqualTo(true);
+
+    assertThat(arena.getTokenType(root)).isEqualTo(TokenType.PLUS);
+    assertThat(arena.getSymbol(7)).isNotEqualTo(Token.NO_SYMBOL);
+    assertThat(arena.getToken(7).lexeme()).isEqualTo("a");
+    assertThat(arena.getToken(0).literal()).isEqualTo(1.5f);
+  }
+
+  private static Expr parseExpression(String source) {
+    final var errorHandler = new ErrorHandler();
+    final var statements =
+        new Parser(errorHandler, new Scanner("print " + source, errorHandler)).parse();
+
+    assertThat(errorHandler.hasErrors()).isFalse();
+
+    return ((PrintStmt) statements.get(0)).getExpression();
+  }
+}
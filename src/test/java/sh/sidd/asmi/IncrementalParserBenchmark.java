@@ -0,0 +1,87 @@
+package sh.sidd.asmi;
+
+import java.util.Arrays;
+import sh.sidd.asmi.parser.IncrementalParser;
+
+/**
+ * Simple timing of edits to an {@link IncrementalParser} for generated sources of growing size.
+ *
+ * <p>Each round inserts a line in the middle of the source and removes it again. Both edits change
+ * the number of lines, so all following statements move. The statements and errors are requested
+ * after each edit, as an editor would, and are part of the measured time.
+ *
+ * <p>Not run as part of the tests. Run it via
+ * {@code java -cp target/classes:target/test-classes:<dependencies> sh.sidd.asmi.IncrementalParserBenchmark}.
+ */
+public final class IncrementalParserBenchmark {
+  private static final int WARMUP_ROUNDS = 200;
+  private static final int MEASURED_ROUNDS = 200;
+  private static final String INSERTED_LINE = "print 42\n";
+
+  private IncrementalParserBenchmark() {}
+
+  public static void main(String[] args) {
+    System.out.printf("%10s %14s %12s%n", "statements", "with requests", "edit only");
+
+    for (final var statements : new int[] {2_000, 20_000, 200_000}) {
+      final var parser = new IncrementalParser(generateSource(statements));
+      final var offset = parser.getSource().indexOf("print", parser.getSource().length() / 2);
+      final var withRequests = measure(parser, offset, true);
+      final var editOnly = measure(parser, offset, false);
+
+      System.out.printf("%10d %11.3f ms %9.3f ms%n", statements, withRequests, editOnly);
+    }
+  }
+
+  private static String generateSource(int statements) {
+    final var sb = new StringBuilder();
+
+    for (var i = 0; i < statements; i++) {
+      sb.append(i % 10 == 0 ? "print )\n" : "print " + i + " + value\n");
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Inserts and removes a line repeatedly and returns the median time of one edit.
+   *
+   * @param parser The parser to edit.
+   * @param offset The position at which the line is inserted.
+   * @param request Whether to request the statements and errors after each edit.
+   * @return The median time in milliseconds.
+   */
+  private static double measure(IncrementalParser parser, int offset, boolean request) {
+    var blackhole = 0;
+
+    for (var i = 0; i < WARMUP_ROUNDS; i++) {
+      blackhole += edit(parser, offset, i, request);
+    }
+
+    final var times = new double[MEASURED_ROUNDS];
+
+    for (var i = 0; i < MEASURED_ROUNDS; i++) {
+      final var start = System.nanoTime();
+      blackhole += edit(parser, offset, i, request);
+      times[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    if (blackhole == 42) {
+      System.out.println();
+    }
+
+    Arrays.sort(times);
+
+    return times[MEASURED_ROUNDS / 2];
+  }
+
+  private static int edit(IncrementalParser parser, int offset, int round, boolean request) {
+    if (round % 2 == 0) {
+      parser.edit(offset, 0, INSERTED_LINE);
+    } else {
+      parser.edit(offset, INSERTED_LINE.length(), "");
+    }
+
+    return request ? parser.getStatements().size() + parser.getErrors().size() : 0;
+  }
+}
@@ -0,0 +1,201 @@
+package sh.sidd.asmi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import sh.sidd.asmi.data.Expr.LiteralExpr;
+import sh.sidd.asmi.data.Stmt;
+import sh.sidd.asmi.data.Stmt.PrintStmt;
+import sh.sidd.asmi.data.Token;
+import sh.sidd.asmi.parser.IncrementalParser;
+import sh.sidd.asmi.parser.Parser;
+import sh.sidd.asmi.scanner.Scanner;
+
+class IncrementalParserTests {
+
+  private static final String SOURCE = """
+      var a = 1
+      if a == 1
+        print "one"
+      end
+      print 2
+      """;
+
+  @Test
+  void shouldOnlyReparseEditedStatement() {
+    final var parser = new IncrementalParser(SOURCE);
+    final var before = parser.getStatements();
+
+    parser.edit(SOURCE.indexOf("one"), 3, "uno");
+
+    final var after = parser.getStatements();
+
+    assertThat(after).hasSize(3);
+    assertThat(after.get(0)).isSameAs(before.get(0));
+    assertThat(after.get(1)).isNotSameAs(before.get(1));
+    assertThat(after.get(2)).isSameAs(before.get(2));
+    assertThat(parser.getSource()).contains("print \"uno\"");
+    assertThat(parser.getErrors()).isEmpty();
+  }
+
+  @Test
+  void shouldReparseStatementTouchingTheEdit() {
+    final var parser = new IncrementalParser(SOURCE);
+    final var before = parser.getStatements();
+
+    parser.edit(SOURCE.indexOf("print 2") + 7, 0, "3");
+
+    final var after = parser.getStatements();
+
+    assertThat(after.get(1)).isSameAs(before.get(1));
+    assertThat(printedValue(after.get(2))).isEqualTo(23);
+  }
+
+  @Test
+  void shouldHandleEditsChangingLines() {
+    final var parser = new IncrementalParser(SOURCE);
+
+    parser.edit(0, 0, "print 0\n\n");
+
+    assertThat(parser.getStatements()).hasSize(4);
+    assertThat(parser.getLine(6)).isEqualTo("print 2");
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void shouldReuseStatementsBehindEditsChangingLines() {
+    final var parser = new IncrementalParser(SOURCE + "print \"two\"\n");
+    final var before = parser.getStatements();
+
+    parser.edit(SOURCE.indexOf("print \"one\""), 0, "print 0\n\n  ");
+
+    final var after = parser.getStatements();
+
+    // Reused statements keep the lines they were parsed at, their offset gives the current lines.
+    assertThat(after).hasSize(4);
+    assertThat(after.get(0)).isSameAs(before.get(0));
+    assertThat(after.get(3)).isSameAs(before.get(3));
+    assertThat(parser.getLineOffsets()).containsExactly(0, 0, 2, 2);
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void shouldMoveErrorsBehindEditsChangingLines() {
+    final var parser = new IncrementalParser("print 1\nprint 2 $\nprint )\n");
+
+    parser.edit(0, 0, "print 0\n\n");
+    assertThat(parser.getErrors()).isEqualTo(parseErrors(parser.getSource()));
+
+    parser.edit(0, "print 0\n\n".length(), "");
+    assertThat(parser.getErrors()).isEqualTo(parseErrors(parser.getSource()));
+  }
+
+  @Test
+  void shouldMatchFullParseAfterManyEdits() {
+    final var random = new Random(7);
+    final var lines =
+        new String[] {"print 1\n", "var a = 2\n", "if a\n", "end\n", "print )\n", "\n"};
+    final var parser = new IncrementalParser(SOURCE.repeat(5));
+
+    for (var i = 0; i < 50; i++) {
+      final var source = parser.getSource();
+      final var offset = source.lastIndexOf('\n', random.nextInt(source.length())) + 1;
+      final var length = random.nextBoolean() ? source.indexOf('\n', offset) + 1 - offset : 0;
+
+      parser.edit(offset, length, lines[random.nextInt(lines.length)]);
+
+      assertMatchesFullParse(parser);
+      assertThat(parser.getErrors()).isEqualTo(parseErrors(parser.getSource()));
+
+      final var editedLines = parser.getSource().split("\n", -1);
+      final var line = random.nextInt(editedLines.length);
+
+      assertThat(parser.getLine(line)).isEqualTo(editedLines[line]);
+    }
+
+    final var sourceLines = parser.getSource().split("\n", -1);
+
+    for (var line = 0; line < sourceLines.length; line++) {
+      assertThat(parser.getLine(line)).isEqualTo(sourceLines[line]);
+    }
+  }
+
+  @Test
+  void shouldUpdateErrors() {
+    final var parser = new IncrementalParser(SOURCE);
+    final var offset = SOURCE.indexOf("== 1");
+
+    parser.edit(offset, 4, "== )");
+    assertThat(parser.getErrors()).isNotEmpty();
+    assertThat(parser.getErrors().get(0)).contains("Expected expression.");
+    assertThat(parser.getErrors()).isEqualTo(parseErrors(parser.getSource()));
+
+    parser.edit(offset, 4, "== 2");
+    assertThat(parser.getErrors()).isEmpty();
+    assertMatchesFullParse(parser);
+  }
+
+  @Test
+  void shouldKeepScannerErrorsOfUnchangedStatements() {
+    final var parser = new IncrementalParser("print 1 $\nprint 2\nprint 3 ?\n");
+
+    assertThat(parser.getErrors()).hasSize(2);
+
+    parser.edit("print 1 $\nprint ".length(), 1, "4");
+
+    assertThat(parser.getErrors()).hasSize(2);
+    assertThat(printedValue(parser.getStatements().get(1))).isEqualTo(4);
+
+    parser.edit("print 1 ".length(), 1, " ");
+
+    assertThat(parser.getErrors()).hasSize(1);
+    assertThat(parser.getErrors().get(0)).contains("Unexpected character: ?");
+  }
+
+  private static Object printedValue(Stmt stmt) {
+    return ((LiteralExpr) ((PrintStmt) stmt).getExpression()).getValue();
+  }
+
+  private static List<Stmt> parse(String source) {
+    final var errorHandler = ErrorHandler.collecting();
+
+    return new Parser(errorHandler, new Scanner(source, errorHandler)).parse();
+  }
+
+  private static List<String> parseErrors(String source) {
+    final var errorHandler = ErrorHandler.collecting();
+
+    new Parser(errorHandler, new Scanner(source, errorHandler)).parse();
+
+    return errorHandler.getErrors();
+  }
+
+  private static void assertMatchesFullParse(IncrementalParser parser) {
+    final var actual = parser.getStatements();
+    final var lineOffsets = parser.getLineOffsets();
+    final var expected = parse(parser.getSource());
+
+    assertThat(actual).hasSameSizeAs(expected);
+    assertThat(lineOffsets).hasSameSizeAs(actual);
+
+    for (int i = 0; i < actual.size(); i++) {
+      final var lineOffset = lineOffsets[i];
+
+      // Reused tokens still reference the source and the lines they were scanned at.
+      final Comparator<Token> tokenComparator = (token, expectedToken) ->
+          token.tokenType() == expectedToken.tokenType()
+              && token.lexeme().equals(expectedToken.lexeme())
+              && Objects.equals(token.literal(), expectedToken.literal())
+              && token.line() + lineOffset == expectedToken.line() ? 0 : 1;
+
+      assertThat(actual.get(i))
+          .usingRecursiveComparison()
+          .withComparatorForType(tokenComparator, Token.class)
+          .isEqualTo(expected.get(i));
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package sh.sidd.asmi;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Simple timing comparison of the inverted while loops written by the compiler against the previous
+ * top-tested loops.
+ *
+ * <p>Both layouts are generated with ASM as {@code long sum(int n)}, which adds up all values below
+ * {@code n} just like the counted loop in {@code WhileTests}. The top-tested loop checks the
+ * condition in front of the body and jumps back via {@code GOTO}, the inverted loop checks it once
+ * as a guard and then once after each iteration.
+ *
+ * <p>Not run as part of the tests. Run it via
+ * {@code java -cp target/classes:target/test-classes:<dependencies> sh.sidd.asmi.LoopBenchmark},
+ * optionally with {@code -Xint} to compare the layouts without the JIT compiler.
+ */
+public final class LoopBenchmark {
+  private static final int WARMUP_ROUNDS = 10;
+  private static final int MEASURED_ROUNDS = 15;
+  private static final String CLASS_NAME = "LoopBenchmarkLoops";
+
+  private LoopBenchmark() {}
+
+  public static void main(String[] args) throws Throwable {
+    final var iterations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+    final var lookup = MethodHandles.lookup();
+    final var loops = lookup.defineHiddenClass(generateClass(), true).lookupClass();
+    final var type = MethodType.methodType(long.class, int.class);
+    final var topTested = lookup.findStatic(loops, "topTested", type);
+    final var inverted = lookup.findStatic(loops, "inverted", type);
+
+    if ((long) topTested.invokeExact(iterations) != (long) inverted.invokeExact(iterations)) {
+      throw new IllegalStateException("Loop layouts computed different sums");
+    }
+
+    System.out.printf("Iterations: %d%n", iterations);
+
+    report("Top-tested", measure(() -> run(topTested, iterations)), iterations);
+    report("Inverted", measure(() -> run(inverted, iterations)), iterations);
+  }
+
+  private static int run(MethodHandle loop, int iterations) {
+    try {
+      return (int) (long) loop.invokeExact(iterations);
+    } catch (Throwable ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static byte[] generateClass() {
+    final var classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+
+    classWriter.visit(V11, ACC_PUBLIC | ACC_FINAL, "sh/sidd/asmi/" + CLASS_NAME, null,
+        "java/lang/Object", null);
+
+    writeTopTested(classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "topTested", "(I)J", null,
+        null));
+    writeInverted(classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "inverted", "(I)J", null,
+        null));
+
+    classWriter.visitEnd();
+
+    return classWriter.toByteArray();
+  }
+
+  /** Writes the previous layout: test at the top, unconditional jump back after the body. */
+  private static void writeTopTested(MethodVisitor mv) {
+    final var loopStartLabel = new Label();
+    final var loopExitLabel = new Label();
+
+    mv.visitCode();
+    writeInit(mv);
+    mv.visitLabel(loopStartLabel);
+    writeCondition(mv, IF_ICMPGE, loopExitLabel);
+    writeBody(mv);
+    mv.visitJumpInsn(GOTO, loopStartLabel);
+    mv.visitLabel(loopExitLabel);
+    writeReturn(mv);
+  }
+
+  /** Writes the layout of {@code Compiler.visitWhileStmt}: guard, body, backward test. */
+  private static void writeInverted(MethodVisitor mv) {
+    final var loopBodyLabel = new Label();
+    final var loopExitLabel = new Label();
+
+    mv.visitCode();
+    writeInit(mv);
+    writeCondition(mv, IF_ICMPGE, loopExitLabel);
+    mv.visitLabel(loopBodyLabel);
+    writeBody(mv);
+    writeCondition(mv, IF_ICMPLT, loopBodyLabel);
+    mv.visitLabel(loopExitLabel);
+    writeReturn(mv);
+  }
+
+  /** Writes {@code var i = 0} into slot 1 and {@code var sum = 0L} into slots 2 and 3. */
+  private static void writeInit(MethodVisitor mv) {
+    mv.visitInsn(ICONST_0);
+    mv.visitVarInsn(ISTORE, 1);
+    mv.visitInsn(LCONST_0);
+    mv.visitVarInsn(LSTORE, 2);
+  }
+
+  /** Writes {@code i < n} as a jump to the given label. */
+  private static void writeCondition(MethodVisitor mv, int opcode, Label label) {
+    mv.visitVarInsn(ILOAD, 1);
+    mv.visitVarInsn(ILOAD, 0);
+    mv.visitJumpInsn(opcode, label);
+  }
+
+  /** Writes {@code sum = sum + i} and {@code i = i + 1}. */
+  private static void writeBody(MethodVisitor mv) {
+    mv.visitVarInsn(LLOAD, 2);
+    mv.visitVarInsn(ILOAD, 1);
+    mv.visitInsn(I2L);
+    mv.visitInsn(LADD);
+    mv.visitVarInsn(LSTORE, 2);
+    mv.visitIincInsn(1, 1);
+  }
+
+  private static void writeReturn(MethodVisitor mv) {
+    mv.visitVarInsn(LLOAD, 2);
+    mv.visitInsn(LRETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  /**
+   * Runs a task repeatedly and returns the median time of the measured rounds.
+   *
+   * @param task The task to run. Its result is consumed so the work can not be eliminated.
+   * @return The median time in milliseconds.
+   */
+  private static double measure(IntSupplier task) {
+    var blackhole = 0;
+
+    for (var i = 0; i < WARMUP_ROUNDS; i++) {
+      blackhole += task.getAsInt();
+    }
+
+    final var times = new double[MEASURED_ROUNDS];
+
+    for (var i = 0; i < MEASURED_ROUNDS; i++) {
+      final var start = System.nanoTime();
+      blackhole += task.getAsInt();
+      times[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    if (blackhole == 42) {
+      System.out.println();
+    }
+
+    Arrays.sort(times);
+
+    return times[MEASURED_ROUNDS / 2];
+  }
+
+  private static void report(String name, double millis, int iterations) {
+    System.out.printf("%-12s %8.2f ms  %8.2f ns/iteration%n", name, millis,
+        millis * 1_000_000 / iterations);
+  }
+}
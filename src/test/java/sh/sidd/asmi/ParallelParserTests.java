@@ -0,0 +1,68 @@
+package sh.sidd.asmi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import sh.sidd.asmi.parser.ParallelParser;
+import sh.sidd.asmi.parser.Parser;
+import sh.sidd.asmi.scanner.Scanner;
+
+class ParallelParserTests {
+
+  private static final String SOURCE = """
+      var a = 1
+
+      def first
+        if a == 1
+          print "one"
+        else
+          print "other"
+        end
+      end
+
+      print a
+      def second
+        while a < 3
+          a = a + 1
+        end
+      end
+      def third
+        print (a +
+      end
+      assert a == 3
+      """;
+
+  @Test
+  void shouldParseLikeSequentialParser() {
+    assertParsedLikeSequentialParser(SOURCE);
+  }
+
+  @Test
+  void shouldFallBackForUnbalancedBlocks() {
+    assertParsedLikeSequentialParser("def first\nprint 1\n");
+    assertParsedLikeSequentialParser("print 1\nend\ndef first\nend\n");
+  }
+
+  private static void assertParsedLikeSequentialParser(String source) {
+    final var sequentialErrors = ErrorHandler.collecting();
+    final var sequential =
+        new Parser(sequentialErrors, new Scanner(source, sequentialErrors)).parse();
+
+    final var parallelErrors = ErrorHandler.collecting();
+    final var tokens = new Scanner(source, parallelErrors).scanTokenBuffer();
+    final var pool = new ForkJoinPool(4);
+
+    try {
+      final var parallel = new ParallelParser(tokens, parallelErrors, pool, 1).parse();
+
+      assertThat(parallel)
+          .usingRecursiveComparison()
+          .ignoringFieldsMatchingRegexes(".*\\.(source|start|lexeme|symbol)")
+          .isEqualTo(sequential);
+      assertThat(parallelErrors.getErrors()).isEqualTo(sequentialErrors.getErrors());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package sh.sidd.asmi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import sh.sidd.asmi.scanner.Rope;
+
+class RopeTests {
+
+  @Test
+  void shouldReplaceRanges() {
+    final var rope = Rope.of("print 1\nprint 2\n");
+
+    final var edited = rope.replace(6, 7, "42").replace(0, 0, "var a\n");
+
+    assertThat(edited.toString()).isEqualTo("var a\nprint 42\nprint 2\n");
+    assertThat(edited.length()).isEqualTo(23);
+    assertThat(edited.charAt(12)).isEqualTo('4');
+    assertThat(edited.subSequence(6, 14)).isEqualTo("print 42");
+  }
+
+  @Test
+  void shouldKeepPreviousVersions() {
+    final var rope = Rope.of("print 1");
+
+    rope.replace(0, 5, "assert");
+
+    assertThat(rope.toString()).isEqualTo("print 1");
+  }
+
+  @Test
+  void shouldMatchStringAfterManyEdits() {
+    final var random = new Random(42);
+    final var expected = new StringBuilder("x".repeat(10_000));
+    var rope = Rope.of(expected);
+
+    for (var i = 0; i < 2_000; i++) {
+      final var start = random.nextInt(expected.length() + 1);
+      final var end = Math.min(expected.length(), start + random.nextInt(50));
+      final var replacement = String.valueOf((char) ('a' + random.nextInt(26)))
+          .repeat(random.nextInt(60));
+
+      expected.replace(start, end, replacement);
+      rope = rope.replace(start, end, replacement);
+    }
+
+    assertThat(rope.toString()).isEqualTo(expected.toString());
+    assertThat(rope.subSequence(100, 300)).isEqualTo(expected.substring(100, 300));
+    assertThat(rope.charAt(expected.length() - 1))
+        .isEqualTo(expected.charAt(expected.length() - 1));
+  }
+
+  @Test
+  void shouldRejectInvalidRanges() {
+    final var rope = Rope.of("print 1");
+
+    assertThatThrownBy(() -> rope.replace(5, 8, ""))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> rope.charAt(7))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
@@ -0,0 +1,144 @@
+package sh.sidd.asmi;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import sh.sidd.asmi.scanner.CharClasses;
+import sh.sidd.asmi.scanner.Scanner;
+import sh.sidd.asmi.scanner.SourceReader;
+
+/**
+ * Simple timing comparison of the bulk character runs of the {@link SourceReader} against the
+ * previous per-character loops, on a large generated source.
+ *
+ * <p>Not run as part of the tests. Run it via
+ * {@code java -cp target/classes:target/test-classes:<dependencies> sh.sidd.asmi.ScannerBenchmark}.
+ */
+public final class ScannerBenchmark {
+  private static final int WARMUP_ROUNDS = 10;
+  private static final int MEASURED_ROUNDS = 15;
+
+  private ScannerBenchmark() {}
+
+  public static void main(String[] args) {
+    final var source = generateSource(args.length > 0 ? Integer.parseInt(args[0]) : 200_000);
+    final var megabytes = source.length() / 1_000_000.0;
+
+    System.out.printf("Source: %.1f million chars%n", megabytes);
+
+    report("Per-char runs", measure(() -> scanRunsPerChar(source)), megabytes);
+    report("Bulk runs", measure(() -> scanRunsInBulk(source)), megabytes);
+    report("Scanner", measure(() -> new Scanner(source, ErrorHandler.collecting())
+        .scanTokenBuffer().size()), megabytes);
+  }
+
+  private static String generateSource(int lines) {
+    final var sb = new StringBuilder();
+
+    for (var i = 0; i < lines; i++) {
+      sb.append("var someIdentifier").append(i).append(" = ").append(i * 31L)
+          .append(" + otherValue_").append(i % 97).append("    # trailing comment ").append(i)
+          .append('\n');
+      sb.append("  \tprint someIdentifier").append(i).append(" * 1234567.875\n");
+    }
+
+    return sb.toString();
+  }
+
+  /** Consumes the same runs as the scanner, one character per {@code peek} and read. */
+  private static int scanRunsPerChar(String source) {
+    final var reader = new SourceReader(source);
+    var runs = 0;
+
+    while (!reader.isAtEnd()) {
+      final var c = reader.readAndAdvance();
+
+      if (isAlpha(c)) {
+        while (isAlpha(reader.peek()) || isDigit(reader.peek())) {
+          reader.readAndAdvance();
+        }
+      } else if (isDigit(c)) {
+        while (isDigit(reader.peek())) {
+          reader.readAndAdvance();
+        }
+      } else if (c == ' ' || c == '\r' || c == '\t') {
+        while (reader.peek() == ' ' || reader.peek() == '\r' || reader.peek() == '\t') {
+          reader.readAndAdvance();
+        }
+      } else if (c == '#') {
+        while (reader.peek() != '\n' && !reader.isAtEnd()) {
+          reader.readAndAdvance();
+        }
+      }
+
+      runs++;
+    }
+
+    return runs;
+  }
+
+  /** Consumes the same runs as {@link #scanRunsPerChar} via the bulk methods. */
+  private static int scanRunsInBulk(String source) {
+    final var reader = new SourceReader(source);
+    var runs = 0;
+
+    while (!reader.isAtEnd()) {
+      final var c = reader.readAndAdvance();
+
+      if (CharClasses.matches(c, CharClasses.ALPHA)) {
+        reader.advanceWhile(CharClasses.ALPHA_NUMERIC);
+      } else if (CharClasses.matches(c, CharClasses.DIGIT)) {
+        reader.advanceWhile(CharClasses.DIGIT);
+      } else if (CharClasses.matches(c, CharClasses.WHITESPACE)) {
+        reader.advanceWhile(CharClasses.WHITESPACE);
+      } else if (c == '#') {
+        reader.advanceUntil('\n');
+      }
+
+      runs++;
+    }
+
+    return runs;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isAlpha(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+  }
+
+  /**
+   * Runs a task repeatedly and returns the median time of the measured rounds.
+   *
+   * @param task The task to run. Its result is consumed so the work can not be eliminated.
+   * @return The median time in milliseconds.
+   */
+  private static double measure(IntSupplier task) {
+    var blackhole = 0;
+
+    for (var i = 0; i < WARMUP_ROUNDS; i++) {
+      blackhole += task.getAsInt();
+    }
+
+    final var times = new double[MEASURED_ROUNDS];
+
+    for (var i = 0; i < MEASURED_ROUNDS; i++) {
+      final var start = System.nanoTime();
+      blackhole += task.getAsInt();
+      times[i] = (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    if (blackhole == 42) {
+      System.out.println();
+    }
+
+    Arrays.sort(times);
+
+    return times[MEASURED_ROUNDS / 2];
+  }
+
+  private static void report(String name, double millis, double megabytes) {
+    System.out.printf("%-14s %8.2f ms  %8.1f Mchars/s%n", name, millis, megabytes / millis * 1000);
+  }
+}
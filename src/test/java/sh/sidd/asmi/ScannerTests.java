@@ -1,15 +1,26 @@
 package sh.sidd.asmi;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import sh.sidd.asmi.data.Token;
 import sh.sidd.asmi.data.TokenType;
+import sh.sidd.asmi.data.SymbolTable;
+import sh.sidd.asmi.scanner.MappedSource;
+import sh.sidd.asmi.scanner.ParallelScanner;
 import sh.sidd.asmi.scanner.Scanner;
+import sh.sidd.asmi.scanner.ScannerException;
 
 class ScannerTests {
   private ErrorHandler errorHandler;
@@ -26,6 +37,197 @@ class ScannerTests {
     assertTokens("# Line one\n1 # comment", List.of(new Token(TokenType.NUMBER, "1", 1, 1)));
   }
 
+  @Test
+  void shouldScanRuns() {
+    assertTokens(" \t\r print  \t 12.50 # comment \t\n\t abc_12",
+        List.of(
+            new Token(TokenType.PRINT, "print", null, 0),
+            new Token(TokenType.NUMBER, "12.50", 12.5, 0),
+            new Token(TokenType.IDENTIFIER, "abc_12", null, 1)));
+  }
+
+  @Test
+  void shouldScanNumberLiterals() {
+    assertTokens("0042", List.of(new Token(TokenType.NUMBER, "0042", 42, 0)));
+    assertTokens("1_000_000", List.of(new Token(TokenType.NUMBER, "1_000_000", 1_000_000, 0)));
+    assertTokens("2147483648",
+        List.of(new Token(TokenType.NUMBER, "2147483648", 2147483648L, 0)));
+    assertTokens("12L", List.of(new Token(TokenType.NUMBER, "12L", 12L, 0)));
+    assertTokens("0x7f", List.of(new Token(TokenType.NUMBER, "0x7f", 0x7f, 0)));
+    assertTokens("0xFFFF_FFFF", List.of(new Token(TokenType.NUMBER, "0xFFFF_FFFF", -1, 0)));
+    assertTokens("0x1_0000_0000",
+        List.of(new Token(TokenType.NUMBER, "0x1_0000_0000", 0x1_0000_0000L, 0)));
+    assertTokens("0.05", List.of(new Token(TokenType.NUMBER, "0.05", 0.05, 0)));
+    assertTokens("1_2.5_0", List.of(new Token(TokenType.NUMBER, "1_2.5_0", 12.5, 0)));
+    assertTokens("0.1f", List.of(new Token(TokenType.NUMBER, "0.1f", 0.1f, 0)));
+    assertTokens("3f", List.of(new Token(TokenType.NUMBER, "3f", 3f, 0)));
+    assertTokens("3.14159265358979323846",
+        List.of(new Token(TokenType.NUMBER, "3.14159265358979323846", Math.PI, 0)));
+    assertTokens("16777217.5f",
+        List.of(new Token(TokenType.NUMBER, "16777217.5f", 16777217.5f, 0)));
+  }
+
+  @Test
+  void shouldReportInvalidNumberLiterals() {
+    new Scanner("9223372036854775808", errorHandler).scanTokens();
+    new Scanner("0x1_0000_0000_0000_0000", errorHandler).scanTokens();
+    new Scanner("1_", errorHandler).scanTokens();
+
+    assertThat(errorHandler.getErrors()).hasSize(3);
+  }
+
+  @Test
+  void shouldScanTokensOnDemand() {
+    final var scanner = new Scanner("print 1\n", errorHandler);
+
+    assertThat(scanner.nextToken()).isEqualTo(new Token(TokenType.PRINT, "print", null, 0));
+    assertThat(scanner.nextToken()).isEqualTo(new Token(TokenType.NUMBER, "1", 1, 0));
+    assertThat(scanner.nextToken()).isEqualTo(new Token(TokenType.EOF, "", null, 1));
+    assertThat(scanner.nextToken()).isEqualTo(new Token(TokenType.EOF, "", null, 1));
+  }
+
+  @Test
+  void shouldRecognizeKeywords() {
+    for (final var entry : TokenType.getKeywordTokens().entrySet()) {
+      final var keyword = entry.getKey();
+
+      assertTokens(keyword, List.of(new Token(entry.getValue(), keyword, null, 0)));
+      assertTokens(keyword + "s", List.of(new Token(TokenType.IDENTIFIER, keyword + "s", null, 0)));
+      assertTokens("_" + keyword, List.of(new Token(TokenType.IDENTIFIER, "_" + keyword, null, 0)));
+    }
+  }
+
+  @Test
+  void shouldInternIdentifiers() {
+    final var scanner = new Scanner("var a = b\na = a + b\nprint c", errorHandler);
+    final var symbols = scanner.scanTokens().stream()
+        .filter(token -> token.tokenType() == TokenType.IDENTIFIER)
+        .map(Token::symbol)
+        .toList();
+
+    assertThat(symbols).containsExactly(0, 1, 0, 0, 1, 2);
+    assertThat(scanner.getSymbolTable().size()).isEqualTo(3);
+    assertThat(scanner.getSymbolTable().getName(1)).isEqualTo("b");
+  }
+
+  @Test
+  void shouldScanIntoTokenBuffer() {
+    final var source = "var v = 1.5\nprint \"text\"\n";
+    final var buffer = new Scanner(source, errorHandler).scanTokenBuffer();
+    final var tokens = new Scanner(source, errorHandler).scanTokens();
+
+    assertThat(buffer.size()).isEqualTo(tokens.size());
+
+    for (int i = 0; i < buffer.size(); i++) {
+      assertThat(buffer.toToken(i)).isEqualTo(tokens.get(i));
+      assertThat(buffer.getLexeme(i)).isEqualTo(tokens.get(i).lexeme());
+    }
+
+    assertThat(buffer.getLiteral(3)).isEqualTo(1.5);
+    assertThat(buffer.getLiteral(5)).isEqualTo("text");
+  }
+
+  @Test
+  void shouldRetrieveSourceLines() {
+    final var scanner = new Scanner("print 1\nprint \"a\nb\"\n\nprint 2", errorHandler);
+
+    // Lines are available before and after scanning.
+    assertThat(scanner.getLine(4)).isEqualTo("print 2");
+    scanner.scanTokens();
+
+    assertThat(scanner.getLine(0)).isEqualTo("print 1");
+    assertThat(scanner.getLine(1)).isEqualTo("print \"a");
+    assertThat(scanner.getLine(2)).isEqualTo("b\"");
+    assertThat(scanner.getLine(3)).isEmpty();
+    assertThat(scanner.getLines(0, 1)).isEqualTo("print 1print \"a");
+    assertThat(scanner.getLineIndex().getLineCount()).isEqualTo(5);
+    assertThat(scanner.getLineIndex().getLineOf(10)).isEqualTo(1);
+    assertThat(scanner.getLineIndex().getColumnOf(10)).isEqualTo(2);
+    assertThatThrownBy(() -> scanner.getLine(5)).isInstanceOf(ScannerException.class);
+  }
+
+  @Test
+  void shouldScanInParallelChunks() {
+    final var sb = new StringBuilder();
+
+    for (int i = 0; i < 200; i++) {
+      sb.append("var v").append(i % 17).append(" = ").append(i).append(" * 2.5 # \"quoted\"\n");
+      sb.append("print \"multi\nline # not a comment\n\"\n");
+      sb.append("if v").append(i % 5).append(" >= 3 $\n  print v3\nend\n");
+    }
+
+    final var source = sb.toString();
+    final var sequentialErrors = ErrorHandler.collecting();
+    final var parallelErrors = ErrorHandler.collecting();
+    final var expected = new Scanner(source, sequentialErrors).scanTokenBuffer();
+    final var pool = new ForkJoinPool(4);
+
+    try {
+      final var parallel =
+          new ParallelScanner(source, parallelErrors, new SymbolTable(), pool, 64);
+      final var actual = parallel.scanTokenBuffer();
+
+      assertThat(actual.size()).isEqualTo(expected.size());
+
+      for (int i = 0; i < expected.size(); i++) {
+        assertThat(actual.toToken(i)).isEqualTo(expected.toToken(i));
+        assertThat(actual.getSymbol(i)).isEqualTo(expected.getSymbol(i));
+      }
+
+      assertThat(parallelErrors.getErrors()).hasSize(200).isEqualTo(sequentialErrors.getErrors());
+      assertThat(parallel.getLine(2)).isEqualTo("line # not a comment");
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void shouldScanMappedSources(@TempDir Path tempDir) throws IOException {
+    final var source = "var s = \"Gr\u00fc\u00dfe\" # Kommentar \u00fc\nprint s\n";
+    final var path = tempDir.resolve("mapped.asmi");
+
+    Files.writeString(path, source, StandardCharsets.UTF_8);
+
+    final var mappedScanner = new Scanner(MappedSource.open(path), errorHandler);
+
+    assertThat(mappedScanner.scanTokens()).isEqualTo(new Scanner(source, errorHandler).scanTokens());
+    assertThat(mappedScanner.getLine(0)).isEqualTo("var s = \"Gr\u00fc\u00dfe\" # Kommentar \u00fc");
+    assertThat(errorHandler.hasErrors()).isFalse();
+  }
+
+  @Test
+  void shouldScanMultibyteStringLiteralsFromMappedSources(@TempDir Path tempDir)
+      throws IOException {
+    final var path = tempDir.resolve("literal.asmi");
+
+    Files.writeString(path, "print \"\u00e4\u20ac\ud83d\ude00\"", StandardCharsets.UTF_8);
+
+    final var tokens = new Scanner(MappedSource.open(path), errorHandler).scanTokens();
+
+    assertThat(tokens.get(1).literal()).isEqualTo("\u00e4\u20ac\ud83d\ude00");
+    assertThat(errorHandler.hasErrors()).isFalse();
+  }
+
+  @Test
+  void shouldReportNonAsciiCharactersOncePerCodePoint(@TempDir Path tempDir) throws IOException {
+    final var source = "print 1 \u00e4 \u20ac \ud83d\ude00\n";
+    final var path = tempDir.resolve("unexpected.asmi");
+
+    Files.writeString(path, source, StandardCharsets.UTF_8);
+
+    final var mappedErrors = ErrorHandler.collecting();
+    final var stringErrors = ErrorHandler.collecting();
+
+    new Scanner(MappedSource.open(path), mappedErrors).scanTokens();
+    new Scanner(source, stringErrors).scanTokens();
+
+    assertThat(mappedErrors.getErrors()).containsExactly(
+        "[line 1] Error: Unexpected character: \u00e4",
+        "[line 1] Error: Unexpected character: \u20ac",
+        "[line 1] Error: Unexpected character: \ud83d\ude00");
+    assertThat(stringErrors.getErrors()).isEqualTo(mappedErrors.getErrors());
+  }
+
   /**
    * Asserts that the given source produces the expected tokens.
    *
@@ -32,4 +32,32 @@ public class ArithmeticTests {
     AsmiTestUtil.assertNoErrors(source);
   }
 
+  @Test
+  public void shouldRespectPrecedenceAndAssociativity() {
+    final var source = """
+        assert 10 - 4 - 3 == 3
+        assert 16 / 4 / 2 == 2
+        assert 2 + 3 * 4 - 6 / 2 == 11
+        assert -2 * -3 == 6
+        assert 1 + 2 * 3 < 2 * 4
+        """;
+
+    AsmiTestUtil.assertNoErrors(source);
+  }
+
+  @Test
+  public void shouldSupportTypedNumberLiterals() {
+    final var source = """
+        assert 3000000000 + 1L == 3000000001
+        assert 0xFF + 1 == 256
+        assert 1_000 * 2 == 2000
+        assert 1.5f + 1 == 2.5f
+
+        var big = 0x7FFF_FFFF_FFFF_FFFFL
+        var small = 1
+        assert big - 0x7FFF_FFFF_FFFF_FFFEL == small
+        """;
+
+    AsmiTestUtil.assertNoErrors(source);
+  }
 }
@@ -3,6 +3,7 @@ package sh.sidd.asmi.e2e;
 import org.assertj.core.api.Assertions;
 import sh.sidd.asmi.ErrorHandler;
 import sh.sidd.asmi.compiler.Compiler;
+import sh.sidd.asmi.data.ExprArena;
 import sh.sidd.asmi.parser.Parser;
 import sh.sidd.asmi.scanner.Scanner;
 
@@ -34,6 +35,31 @@ public final class AsmiTestUtil {
     // TODO Assert that there is only one error.
   }
 
+  /**
+   * Asserts that given source code compiles without any errors, without running it.
+   *
+   * @param source The source to compile.
+   */
+  public static void assertCompiles(String source) {
+    final var errorHandler = compileSource(source).errorHandler;
+
+    assertThat(errorHandler.getErrors()).isEmpty();
+  }
+
+  /**
+   * Compiles the given source code without running it.
+   *
+   * @param source The source to compile.
+   * @return The written bytecode.
+   */
+  public static String compileToByteCode(String source) {
+    final var output = compileSource(source);
+
+    assertThat(output.errorHandler.getErrors()).isEmpty();
+
+    return output.bytecode;
+  }
+
   /**
    * Asserts that given source code runs without any errors.
    *
@@ -103,10 +129,10 @@ public final class AsmiTestUtil {
   private static SourceOutput runSource(String source) throws Throwable {
     final var errorHandler = new ErrorHandler();
     final var scanner = new Scanner(source, errorHandler);
-    final var tokens = scanner.scanTokens();
-    final var parser = new Parser(errorHandler, tokens);
+    final var arena = new ExprArena();
+    final var parser = new Parser(errorHandler, scanner, arena);
     final var ast = parser.parse();
-    final var compiler = new Compiler(errorHandler, ast, scanner);
+    final var compiler = new Compiler(errorHandler, ast, scanner, arena);
 
     assertThat(errorHandler.hasErrors()).as("Should not have parse errors.").isFalse();
 
@@ -133,13 +159,13 @@ public final class AsmiTestUtil {
   private static SourceOutput compileSource(String source) {
     final var errorHandler = new ErrorHandler();
     final var scanner = new Scanner(source, errorHandler);
-    final var tokens = scanner.scanTokens();
-    final var parser = new Parser(errorHandler, tokens);
+    final var arena = new ExprArena();
+    final var parser = new Parser(errorHandler, scanner, arena);
     final var ast = parser.parse();
-    final var compiler = new Compiler(errorHandler, ast, scanner);
+    final var compiler = new Compiler(errorHandler, ast, scanner, arena);
 
     compiler.compile();
 
-    return new SourceOutput(null, null, errorHandler);
+    return new SourceOutput(null, compiler.getByteCode(), errorHandler);
   }
 }
@@ -0,0 +1,96 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class CommonSubexpressionTests {
+  private static int count(String bytecode, String opcode) {
+    return bytecode.split(opcode, -1).length - 1;
+  }
+
+  @Test
+  public void shouldComputeRepeatedExpressionsOnce() {
+    final var source = """
+        var a = 3
+        var b = 4
+        var c = 5
+        a = a
+        b = b
+        c = c
+        print (a * b + c) * (a * b + c)
+        """;
+
+    AsmiTestUtil.assertOutput(source, "289");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+    assertThat(count(bytecode, "IMUL")).isEqualTo(2);
+    assertThat(count(bytecode, "IADD")).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReuseValuesAcrossStatements() {
+    final var source = """
+        var a = 1.5
+        var b = 2
+        a = a
+        b = b
+        var x = a * b
+        var y = a * b + 1
+        print x + y
+        """;
+
+    AsmiTestUtil.assertOutput(source, "7.0");
+    assertThat(count(AsmiTestUtil.compileToByteCode(source), "DMUL")).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRecomputeAfterAssignment() {
+    final var source = """
+        var a = 2
+        var b = 3
+        print a * b
+        a = 5
+        print a * b
+        """;
+
+    AsmiTestUtil.assertOutput(source, "6\n15");
+  }
+
+  @Test
+  public void shouldRespectCasts() {
+    final var source = """
+        var a = 2
+        var b = 3
+        a = a
+        b = b
+        print a * b + 0.5
+        print a * b + 1
+        print a * b + 1L
+        """;
+
+    AsmiTestUtil.assertOutput(source, "6.5\n7\n7");
+  }
+
+  @Test
+  public void shouldNotReuseValuesAcrossBranches() {
+    final var source = """
+        var a = 2
+        var b = 3
+        a = a
+        b = b
+        var i = 0
+        while i < 3
+          if i == 1
+            print a * b
+          end
+          print a * b + i
+          a = a + 1
+          i = i + 1
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "6\n9\n10\n14");
+  }
+}
@@ -0,0 +1,117 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ConditionTests {
+  private static final String[] OPERATORS = {"==", "!=", "<", "<=", ">", ">="};
+
+  private static int compare(double a, double b, String operator) {
+    final boolean result = switch (operator) {
+      case "==" -> a == b;
+      case "!=" -> a != b;
+      case "<" -> a < b;
+      case "<=" -> a <= b;
+      case ">" -> a > b;
+      default -> a >= b;
+    };
+
+    return result ? 1 : 0;
+  }
+
+  @Test
+  public void shouldJumpOnComparisonsOfAllTypes() {
+    final String[][] values = {
+        {"1", "2"}, {"2", "1"}, {"-3", "-3"}, {"0", "5"}, {"5", "0"}, {"0", "-5"},
+        {"1L", "2L"}, {"-7L", "-7L"}, {"1.5f", "0.5f"}, {"2.0", "2.0"}, {"1", "2.5"}};
+
+    for (final var pair : values) {
+      final var source = new StringBuilder(
+          "var a = " + pair[0] + "\nvar b = " + pair[1] + "\na = a\nb = b\n");
+      final var expected = new StringBuilder();
+
+      // Each comparison is printed once as a condition and once as a value.
+      for (final var operator : OPERATORS) {
+        source.append("if a ").append(operator).append(" b\nprint 1\nelse\nprint 0\nend\n");
+        source.append("print a ").append(operator).append(" b\n");
+
+        final var result = compare(Double.parseDouble(pair[0].replaceAll("[Lf]", "")),
+            Double.parseDouble(pair[1].replaceAll("[Lf]", "")), operator);
+        expected.append(result).append('\n').append(result).append('\n');
+      }
+
+      AsmiTestUtil.assertOutput(source.toString(), expected.toString());
+    }
+  }
+
+  @Test
+  public void shouldCompareAgainstZero() {
+    for (final var value : new int[] {-1, 0, 1}) {
+      final var source = new StringBuilder("var a = " + value + "\na = a\n");
+      final var expected = new StringBuilder();
+
+      for (final var operator : OPERATORS) {
+        source.append("if a ").append(operator).append(" 0\nprint 1\nelse\nprint 0\nend\n");
+        source.append("if 0 ").append(operator).append(" a\nprint 1\nelse\nprint 0\nend\n");
+        expected.append(compare(value, 0, operator)).append('\n')
+            .append(compare(0, value, operator)).append('\n');
+      }
+
+      AsmiTestUtil.assertOutput(source.toString(), expected.toString());
+    }
+
+    final var bytecode = AsmiTestUtil.compileToByteCode("""
+        var a = 1
+        a = a
+        if a < 0
+          print a
+        end
+        """);
+
+    assertThat(bytecode).contains("IFGE").doesNotContain("IF_ICMP");
+  }
+
+  @Test
+  public void shouldBranchOnceInLoops() {
+    final var source = """
+        var i = 0
+        while i < 3
+          i = i + 1
+        end
+        assert i == 3
+        print i
+        """;
+
+    AsmiTestUtil.assertOutput(source, "3");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+    assertThat(bytecode).contains("IF_ICMPGE", "IF_ICMPEQ")
+        .doesNotContain("ICONST_0", "ICONST_1", "IFEQ", "IFNE");
+  }
+
+  @Test
+  public void shouldFailAssertionsOnComparisons() {
+    AsmiTestUtil.assertRuntimeError("""
+        var a = 1.5
+        a = a
+        assert a > 2
+        """, "assert a > 2");
+  }
+
+  @Test
+  public void shouldJumpOnNonComparisons() {
+    final var source = """
+        var a = 2
+        a = a
+        if a - 2
+          print "nonzero"
+        else
+          print "zero"
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "zero");
+  }
+}
@@ -0,0 +1,81 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ConstantFoldingTests {
+  @Test
+  public void shouldFoldArithmetic() {
+    AsmiTestUtil.assertOutput("print 2 + 3 * 4", "14");
+    AsmiTestUtil.assertOutput("print (2 + 3) * -4", "-20");
+    AsmiTestUtil.assertOutput("print 7 / 2 + 1.5", "4.5");
+    AsmiTestUtil.assertOutput("print 1L + 2", "3");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode("print (2 + 3) * 4 - 6 / 2");
+
+    assertThat(bytecode).doesNotContain("IADD", "IMUL", "ISUB", "IDIV");
+  }
+
+  @Test
+  public void shouldFoldComparisons() {
+    AsmiTestUtil.assertNoErrors("assert 1 != 2");
+    AsmiTestUtil.assertRuntimeError("assert 1 != 1");
+    AsmiTestUtil.assertNoErrors("assert 1.5 > 1");
+    AsmiTestUtil.assertNoErrors("assert 2.5f <= 2.5");
+    AsmiTestUtil.assertRuntimeError("assert 0.1f == 0.1");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode("assert 1 < 2");
+
+    assertThat(bytecode).doesNotContain("IF_ICMP");
+  }
+
+  @Test
+  public void shouldPropagateConstantVariables() {
+    final var source = """
+        var a = 6
+        var b = a * 7
+        print b
+        """;
+
+    AsmiTestUtil.assertOutput(source, "42");
+    assertThat(AsmiTestUtil.compileToByteCode(source)).doesNotContain("IMUL");
+  }
+
+  @Test
+  public void shouldNotPropagateReassignedVariables() {
+    final var source = """
+        var a = 6
+        a = 7
+        print a * 6
+        """;
+
+    AsmiTestUtil.assertOutput(source, "42");
+    assertThat(AsmiTestUtil.compileToByteCode(source)).contains("IMUL");
+  }
+
+  @Test
+  public void shouldNotFoldDivisionByZero() {
+    AsmiTestUtil.assertRuntimeError("print 1 / 0", "/ by zero");
+  }
+
+  @Test
+  public void shouldCompareAtRuntime() {
+    final var source = """
+        var a = 1
+        var b = 2
+        a = a
+        b = b
+        assert a < b
+        assert a <= b
+        assert b > a
+        assert b >= a
+        assert a != b
+        assert a == a
+        """;
+
+    AsmiTestUtil.assertNoErrors(source);
+    AsmiTestUtil.assertRuntimeError(source + "assert a == b\n");
+    AsmiTestUtil.assertRuntimeError(source + "assert a != a\n");
+  }
+}
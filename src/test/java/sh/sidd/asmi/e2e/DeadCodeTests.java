@@ -0,0 +1,83 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class DeadCodeTests {
+  @Test
+  public void shouldRemoveDeadIfArms() {
+    final var source = """
+        if 0 == 1
+          print "dead"
+        else
+          print "live"
+        end
+
+        if 1 < 2
+          print "also live"
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "live\nalso live");
+    assertThat(AsmiTestUtil.compileToByteCode(source))
+        .doesNotContain("\"dead\"", "IFEQ", "GOTO");
+  }
+
+  @Test
+  public void shouldRemoveLoopsWhichNeverRun() {
+    final var source = """
+        while false
+          print "dead"
+        end
+
+        print "live"
+        """;
+
+    AsmiTestUtil.assertOutput(source, "live");
+    assertThat(AsmiTestUtil.compileToByteCode(source)).doesNotContain("\"dead\"", "GOTO");
+  }
+
+  @Test
+  public void shouldRemoveVariablesOnlyUsedByDeadCode() {
+    final var source = """
+        var debug = 0
+        var a = 20
+        a = a + 1
+        var b = a * 2
+        if debug == 1
+          print b
+        end
+        print a
+        """;
+
+    AsmiTestUtil.assertOutput(source, "21");
+    assertThat(AsmiTestUtil.compileToByteCode(source)).doesNotContain("IMUL");
+  }
+
+  @Test
+  public void shouldKeepValuesWhichMayFail() {
+    final var source = """
+        var zero = 0
+        zero = zero
+        var unused = 1 / zero
+        """;
+
+    AsmiTestUtil.assertRuntimeError(source, "/ by zero");
+  }
+
+  @Test
+  public void shouldKeepBranchesWithUnknownConditions() {
+    final var source = """
+        var a = 1
+        a = a + 1
+        if a == 2
+          print "two"
+        else
+          print "other"
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "two");
+  }
+}
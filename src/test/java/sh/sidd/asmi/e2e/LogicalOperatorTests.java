@@ -0,0 +1,168 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LogicalOperatorTests {
+  @Test
+  public void shouldEvaluateTruthTables() {
+    for (final var a : new int[] {0, 1}) {
+      for (final var b : new int[] {0, 2}) {
+        final var source = """
+            var a = %d
+            var b = %d
+            a = a
+            b = b
+            print a and b
+            print a or b
+            if a and b
+              print 1
+            else
+              print 0
+            end
+            if a or b
+              print 1
+            else
+              print 0
+            end
+            """.formatted(a, b);
+        final var and = a != 0 && b != 0 ? 1 : 0;
+        final var or = a != 0 || b != 0 ? 1 : 0;
+
+        AsmiTestUtil.assertOutput(source, and + "\n" + or + "\n" + and + "\n" + or);
+      }
+    }
+  }
+
+  @Test
+  public void shouldSupportBooleansAndComparisons() {
+    AsmiTestUtil.assertOutput("print true and false\nprint false or true", "0\n1");
+    AsmiTestUtil.assertNoErrors("assert 1 < 2 and 2 < 3");
+    AsmiTestUtil.assertRuntimeError("assert 1 < 2 and 3 < 2", "assert 1 < 2 and 3 < 2");
+
+    final var source = """
+        var a = 1
+        var b = 5
+        a = a
+        b = b
+        assert a < b and b < 10
+        assert a > b or b >= 5
+        """;
+
+    AsmiTestUtil.assertNoErrors(source);
+    assertThat(AsmiTestUtil.compileToByteCode(source)).doesNotContain("ICONST_0", "ICONST_1");
+  }
+
+  @Test
+  public void shouldBindLooserThanComparisons() {
+    final var source = """
+        var a = 1
+        var b = 2
+        var c = 4
+        a = a
+        b = b
+        c = c
+        print a == 1 or b == 3 and c == 3
+        print (a == 1 or b == 3) and c == 3
+        print a + 1 == b and c - 1 > b
+        """;
+
+    AsmiTestUtil.assertOutput(source, "1\n0\n1");
+  }
+
+  @Test
+  public void shouldShortCircuit() {
+    final var source = """
+        var zero = 0
+        zero = zero
+        if zero != 0 and 10 / zero > 1
+          print "unreachable"
+        end
+        if zero == 0 or 10 / zero > 1
+          print "short"
+        end
+        print zero != 0 and 10 / zero > 1
+        var i = 0
+        while i < 3 and (zero == 0 or 1 / zero == 1)
+          i = i + 1
+        end
+        print i
+        """;
+
+    AsmiTestUtil.assertOutput(source, "short\n0\n3");
+    AsmiTestUtil.assertRuntimeError(source.replace("zero != 0 and", "zero == 0 and"), "/ by zero");
+  }
+
+  @Test
+  public void shouldNotShareValuesOfSkippedOperands() {
+    final var source = """
+        var a = 2
+        var b = 3
+        a = a
+        b = b
+        var skip = a > 5 and a * b > 1
+        print a * b
+        """;
+
+    AsmiTestUtil.assertOutput(source, "6");
+  }
+
+  @Test
+  public void shouldRejectOtherOperands() {
+    AsmiTestUtil.assertCompileError("print 1.5 and 1", "Operands must be integers or booleans.");
+  }
+
+  @Test
+  public void shouldCompileLongChains() {
+    final var source = "var a = 1\na = a\nassert a" + " and a".repeat(10_000);
+
+    AsmiTestUtil.assertNoErrors(source);
+  }
+
+  @Test
+  public void shouldUseLogicalOperatorsAsOperands() {
+    for (final var a : new int[] {0, 1}) {
+      for (final var b : new int[] {0, 3}) {
+        final var source = """
+            var a = %d
+            var b = %d
+            var c = 2
+            a = a
+            b = b
+            c = c
+            print (a and b) + c
+            print c + (a and b)
+            print 10 - (a or b)
+            print c * (a or b) - (b and c)
+            print (a and b) < (a or b)
+            print c == (a or b) + 1
+            """.formatted(a, b);
+        final var and = a != 0 && b != 0 ? 1 : 0;
+        final var or = a != 0 || b != 0 ? 1 : 0;
+        final var bAndC = b != 0 ? 1 : 0;
+        final var expected = String.join("\n",
+            String.valueOf(and + 2), String.valueOf(2 + and), String.valueOf(10 - or),
+            String.valueOf(2 * or - bAndC), and < or ? "1" : "0", 2 == or + 1 ? "1" : "0");
+
+        AsmiTestUtil.assertOutput(source, expected);
+      }
+    }
+  }
+
+  @Test
+  public void shouldUseNestedLogicalOperatorsAsOperands() {
+    final var source = """
+        var a = 1
+        var b = 0
+        a = a
+        b = b
+        print ((a or b) and (b or a)) + ((a and b) or (b + 1)) * 4
+        if (a and b) + 1 == 1
+          print "yes"
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "5\nyes");
+  }
+}
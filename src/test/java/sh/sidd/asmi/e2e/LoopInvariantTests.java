@@ -0,0 +1,95 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LoopInvariantTests {
+  @Test
+  public void shouldComputeInvariantsBeforeLoop() {
+    final var source = """
+        var a = 3
+        var b = 4
+        a = a
+        b = b
+        var i = 0
+        var sum = 0
+        while i < a * b
+          sum = sum + (a * b - 2)
+          i = i + 1
+        end
+        print sum
+        """;
+
+    AsmiTestUtil.assertOutput(source, "120");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+    final var loopStart = bytecode.indexOf("IF_ICMP");
+
+    assertThat(bytecode.indexOf("IMUL")).isBetween(0, loopStart);
+    assertThat(bytecode.indexOf("IMUL", loopStart)).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldKeepComputationsOfModifiedVariablesInLoop() {
+    final var source = """
+        var a = 1
+        var i = 0
+        while i < 3
+          print a * 2 + i
+          a = a + 1
+          i = i + 1
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "2\n5\n8");
+  }
+
+  @Test
+  public void shouldMoveInvariantsOfNestedLoops() {
+    final var source = """
+        var n = 3L
+        n = n
+        var i = 0
+        while i < 2
+          var j = 0
+          while j < 2
+            print n * 5 + i
+            j = j + 1
+          end
+          i = i + 1
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "15\n15\n16\n16");
+  }
+
+  @Test
+  public void shouldNotMoveDivisionsWhichMayFail() {
+    final var source = """
+        var zero = 0
+        zero = zero
+        while zero > 0
+          print 1 / zero
+        end
+        print "done"
+        """;
+
+    AsmiTestUtil.assertOutput(source, "done");
+  }
+
+  @Test
+  public void shouldMoveInvariantsOfLoopsWhichNeverRun() {
+    final var source = """
+        var a = 2.5
+        a = a
+        var i = 0
+        while i < 0
+          print a * 3
+        end
+        print i
+        """;
+
+    AsmiTestUtil.assertOutput(source, "0");
+  }
+}
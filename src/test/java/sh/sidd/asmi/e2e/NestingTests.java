@@ -0,0 +1,31 @@
+package sh.sidd.asmi.e2e;
+
+import org.junit.jupiter.api.Test;
+
+public class NestingTests {
+  private static final int DEPTH = 100_000;
+
+  @Test
+  void shouldSupportDeeplyNestedGroupings() {
+    final var source = "print " + "(".repeat(DEPTH) + "42" + ")".repeat(DEPTH);
+
+    AsmiTestUtil.assertOutput(source, "42");
+  }
+
+  @Test
+  void shouldSupportDeeplyNestedExpressions() {
+    // The resulting methods exceed the limits of the JVM, so they are only compiled.
+    AsmiTestUtil.assertCompiles("print " + "-".repeat(DEPTH) + "1");
+    AsmiTestUtil.assertCompiles("print " + "(".repeat(DEPTH) + "1" + " + 1)".repeat(DEPTH));
+  }
+
+  @Test
+  void shouldSupportDeeplyNestedBlocks() {
+    final var source = "var a = 1\n"
+        + "if a == 1\n".repeat(DEPTH)
+        + "a = 2\n"
+        + "end\n".repeat(DEPTH);
+
+    AsmiTestUtil.assertCompiles(source);
+  }
+}
@@ -0,0 +1,124 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class ScopeTests {
+
+  @Test
+  public void shouldNotAccessVariablesAfterTheirBlock() {
+    final var source = """
+        if true
+          var v = 1
+        end
+        print v
+        """;
+
+    AsmiTestUtil.assertCompileError(source, "Error at 'v': Unknown variable: v");
+  }
+
+  @Test
+  public void shouldNotAssignVariablesAfterTheirBlock() {
+    final var source = """
+        var i = 0
+        while i < 2
+          var v = i
+          i = i + 1
+        end
+        v = 2
+        """;
+
+    AsmiTestUtil.assertCompileError(source, "Error at 'v': Unknown variable: v");
+  }
+
+  @Test
+  public void shouldShadowVariablesOfEnclosingBlocks() {
+    final var source = """
+        var v = 1
+        var w = 2L
+        w = w
+        if true
+          var v = 2.5
+          var w = v * 2
+          print v
+          print w
+        end
+        print v
+        print w
+        """;
+
+    AsmiTestUtil.assertOutput(source, "2.5\n5.0\n1\n2");
+  }
+
+  @Test
+  public void shouldReadEnclosingVariableInShadowingInitializer() {
+    final var source = """
+        var v = 3
+        v = v
+        if v > 0
+          var v = v + 1
+          v = v * 2
+          print v
+        end
+        print v
+        """;
+
+    AsmiTestUtil.assertOutput(source, "8\n3");
+  }
+
+  @Test
+  public void shouldAllowSameNameInSiblingBlocks() {
+    final var source = """
+        var i = 0
+        while i < 3
+          if i == 1
+            var v = i * 10
+            print v
+          else
+            var v = i + 100
+            print v
+          end
+          i = i + 1
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "100\n10\n102");
+  }
+
+  @Test
+  public void shouldNotAllowRedefinitionInSameBlock() {
+    final var source = """
+        if true
+          var v = 1
+          var v = 2
+        end
+        """;
+
+    AsmiTestUtil.assertCompileError(source, "Error at 'v': Identifier already exists.");
+  }
+
+  @Test
+  public void shouldReuseSlotsOfEndedBlocks() {
+    final var source = """
+        var a = 1L
+        a = a
+        if a > 0
+          var b = a + 1
+          b = b
+          print b
+        end
+        if a > 0
+          var c = a + 2
+          c = c
+          print c
+        end
+        """;
+
+    AsmiTestUtil.assertOutput(source, "2\n3");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+    assertThat(bytecode).contains("LSTORE 1", "LSTORE 3").doesNotContain("LSTORE 5");
+  }
+}
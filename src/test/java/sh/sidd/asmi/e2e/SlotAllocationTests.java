@@ -0,0 +1,114 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class SlotAllocationTests {
+  @Test
+  public void shouldReuseSlotsOfDeadVariables() {
+    final var source = new StringBuilder();
+    final var expected = new StringBuilder();
+
+    for (var i = 0; i < 20; i++) {
+      source.append("var v").append(i).append(" = ").append(i).append('\n');
+      source.append("v").append(i).append(" = v").append(i).append(" * 3\n");
+      source.append("print v").append(i).append('\n');
+      expected.append(i * 3).append('\n');
+    }
+
+    AsmiTestUtil.assertOutput(source.toString(), expected.toString());
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source.toString());
+
+    assertThat(bytecode).contains("ISTORE 1").doesNotContain("ISTORE 0", "ISTORE 2");
+  }
+
+  @Test
+  public void shouldKeepWideSlotsApart() {
+    final var source = """
+        var a = 1L
+        a = a
+        var b = 2.5
+        b = b
+        var c = 3
+        c = c
+        print a + c
+        print b
+        var d = 4L
+        d = d
+        print d + a
+        """;
+
+    AsmiTestUtil.assertOutput(source, "4\n2.5\n5");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+    assertThat(bytecode).contains("LSTORE 1", "DSTORE 3", "ISTORE 5", "LSTORE 3")
+        .doesNotContain("LSTORE 2", "ISTORE 0");
+  }
+
+  @Test
+  public void shouldLoadAndStoreWideValuesWithTheirOwnOpcodes() {
+    final var source = """
+        var big = 0x7FFF_FFFF_FFFF_FFFFL
+        big = big
+        var half = 0.5
+        half = half
+        var small = 1
+        small = small
+        print big - small
+        print half + small
+        """;
+
+    AsmiTestUtil.assertOutput(source, "9223372036854775806\n1.5");
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+    assertThat(bytecode).contains("LSTORE", "LLOAD", "DSTORE", "DLOAD", "println (J)V")
+        .doesNotContain("println (L)V");
+  }
+
+  @Test
+  public void shouldKeepVariablesLiveAcrossLoops() {
+    final var source = """
+        var sum = 0
+        var i = 0
+        var last = 0
+        while i < 4
+          var square = i * i
+          sum = sum + square
+          last = square
+          i = i + 1
+        end
+        var after = sum + 1
+        after = after
+        print sum
+        print last
+        print after
+        """;
+
+    AsmiTestUtil.assertOutput(source, "14\n9\n15");
+  }
+
+  @Test
+  public void shouldKeepTemporariesApartFromVariables() {
+    final var source = """
+        var a = 3
+        var b = 4
+        a = a
+        b = b
+        var i = 0
+        var sum = 0
+        while i < 3
+          sum = sum + (a * b) + (a * b)
+          i = i + 1
+        end
+        var c = sum
+        c = c
+        print c
+        """;
+
+    AsmiTestUtil.assertOutput(source, "72");
+  }
+}
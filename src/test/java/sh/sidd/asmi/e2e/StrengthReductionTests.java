@@ -0,0 +1,118 @@
+package sh.sidd.asmi.e2e;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class StrengthReductionTests {
+  /** Assigns the value to a reassigned variable, so operations on it are not folded. */
+  private static String defineVariable(String value) {
+    return "var x = " + value + "\nx = x\n";
+  }
+
+  @Test
+  public void shouldShiftIntegerMultiplicationsByPowersOfTwo() {
+    for (final var value : new int[] {0, 1, -1, 7, -7, 123_456_789, Integer.MAX_VALUE}) {
+      final var source = defineVariable(String.valueOf(value)) + """
+          print x * 8
+          print 2 * x
+          print x * 1024
+          """;
+
+      AsmiTestUtil.assertOutput(source, (value * 8) + "\n" + (2 * value) + "\n" + (value * 1024));
+    }
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(defineVariable("3") + "print x * 16");
+
+    assertThat(bytecode).contains("ISHL").doesNotContain("IMUL");
+  }
+
+  @Test
+  public void shouldShiftLongMultiplicationsByPowersOfTwo() {
+    for (final var value : new long[] {0, -3, 5_000_000_000L, Long.MAX_VALUE}) {
+      final var source = defineVariable(value + "L") + """
+          print x * 4
+          print x * 4294967296L
+          """;
+
+      AsmiTestUtil.assertOutput(source, (value * 4) + "\n" + (value * 4294967296L));
+    }
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(defineVariable("3L") + "print x * 2");
+
+    assertThat(bytecode).contains("LSHL").doesNotContain("LMUL");
+  }
+
+  @Test
+  public void shouldRemoveIdentityOperations() {
+    for (final var value : new int[] {0, -42, Integer.MAX_VALUE}) {
+      final var source = defineVariable(String.valueOf(value)) + """
+          print x * 1
+          print 1 * x
+          print x / 1
+          print x + 0
+          print 0 + x
+          print x - 0
+          """;
+
+      AsmiTestUtil.assertOutput(source, (value + "\n").repeat(6));
+    }
+
+    final var bytecode = AsmiTestUtil.compileToByteCode(
+        defineVariable("3") + "print x * 1 + 0 - 0 / 1");
+
+    assertThat(bytecode).doesNotContain("IMUL", "IADD", "ISUB", "IDIV");
+  }
+
+  @Test
+  public void shouldAddFloatingPointValuesInsteadOfDoubling() {
+    for (final var value : new String[] {"1.5", "-0.0", "-0.1", "1" + "0".repeat(308) + ".0"}) {
+      final var expected = Double.parseDouble(value);
+      final var source = defineVariable(value) + """
+          print x * 2
+          print 2.0 * x
+          print x * 1
+          print x - 0
+          """;
+
+      AsmiTestUtil.assertOutput(source,
+          (expected * 2) + "\n" + (2.0 * expected) + "\n" + expected + "\n" + (expected - 0));
+    }
+
+    final var floatSource = defineVariable("34028235" + "0".repeat(31) + ".0f")
+        + "print x * 2\nprint x * 2.0f";
+
+    AsmiTestUtil.assertOutput(floatSource, (Float.MAX_VALUE * 2) + "\n" + (Float.MAX_VALUE * 2));
+    assertThat(AsmiTestUtil.compileToByteCode(floatSource))
+        .contains("DUP", "FADD").doesNotContain("FMUL");
+  }
+
+  @Test
+  public void shouldHandleNaN() {
+    final var source = """
+        var zero = 0.0
+        zero = zero
+        var x = zero / zero
+        print x * 2
+        print x * 1
+        print x - 0
+        """;
+
+    AsmiTestUtil.assertOutput(source, "NaN\nNaN\nNaN");
+  }
+
+  @Test
+  public void shouldKeepOperationsWhichAreNotExact() {
+    final var source = defineVariable("-0.0") + """
+        print x + 0
+        print x - -0.0
+        """;
+
+    AsmiTestUtil.assertOutput(source, "0.0\n0.0");
+
+    final var divisionSource = defineVariable("-7") + "print x / 2";
+
+    AsmiTestUtil.assertOutput(divisionSource, String.valueOf(-7 / 2));
+    assertThat(AsmiTestUtil.compileToByteCode(divisionSource)).contains("IDIV");
+  }
+}
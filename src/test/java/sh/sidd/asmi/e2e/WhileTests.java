@@ -1,5 +1,7 @@
 package sh.sidd.asmi.e2e;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import org.junit.jupiter.api.Test;
 
 public class WhileTests {
@@ -16,4 +18,43 @@ public class WhileTests {
 
         AsmiTestUtil.assertOutput(source, "0\n1\n2\n");
     }
+
+    @Test
+    void shouldSkipLoopIfConditionFailsInitially() {
+        final var source = """
+            var i = 5
+            i = i
+
+            while i < 3
+              print i
+              i = i + 1
+            end
+
+            print "done"
+            """;
+
+        AsmiTestUtil.assertOutput(source, "done");
+    }
+
+    @Test
+    void shouldBranchOncePerIteration() {
+        final var source = """
+            var i = 0
+            var sum = 0L
+
+            while i < 100000
+              sum = sum + i
+              i = i + 1
+            end
+
+            print sum
+            """;
+
+        AsmiTestUtil.assertOutput(source, "4999950000");
+
+        // The guard jumps forward if the condition fails, the bottom test jumps back if it holds.
+        final var bytecode = AsmiTestUtil.compileToByteCode(source);
+
+        assertThat(bytecode).contains("IF_ICMPGE", "IF_ICMPLT").doesNotContain("GOTO");
+    }
 }